@@ -1,76 +1,92 @@
 package com.studytracker.analytics;
 
-import com.studytracker.study.StudySession;
-import com.studytracker.study.StudySessionRepository;
 import com.studytracker.support.AuthUtils;
-import com.studytracker.words.WordLog;
-import com.studytracker.words.WordLogRepository;
+import com.studytracker.support.DataVersions;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/analytics")
 public class AnalyticsController {
-    private final StudySessionRepository sessionRepo;
-    private final WordLogRepository wordLogRepo;
+    /** 单次查询最多 5 年 */
+    private static final long MAX_RANGE_DAYS = 366L * 5;
+    private static final int MIN_YEAR = 2000;
+    private static final int MAX_YEAR = 2100;
+
+    private final DailyUserStatRepository statsRepo;
     private final AuthUtils auth;
+    private final DataVersions versions;
 
-    public AnalyticsController(StudySessionRepository sessionRepo, WordLogRepository wordLogRepo, AuthUtils auth) {
-        this.sessionRepo = sessionRepo;
-        this.wordLogRepo = wordLogRepo;
+    public AnalyticsController(DailyUserStatRepository statsRepo, AuthUtils auth, DataVersions versions) {
+        this.statsRepo = statsRepo;
         this.auth = auth;
+        this.versions = versions;
     }
 
+    /**
+     * 按 day/week/month 聚合学习时长和背词数。传了 from/to 时忽略 range（7d/30d）。
+     * 返回的 date 为每个桶的起始日期，没有数据的桶补 0。
+     */
     @GetMapping("/daily")
-    public List<Map<String, Object>> daily(@RequestParam(defaultValue = "30d") String range) {
-        int days = range.equals("30d") ? 30 : (range.equals("7d") ? 7 : 30);
-        LocalDate to = LocalDate.now();
-        LocalDate from = to.minusDays(days - 1);
-
-        LocalDateTime fromUtc = from.atStartOfDay();
-        LocalDateTime toUtc = to.plusDays(1).atStartOfDay();
-
-        List<StudySession> sessions = sessionRepo.findByUserIdAndStartTimeBetweenOrderByStartTimeAsc(
-                auth.currentUserId(), fromUtc, toUtc);
-        List<WordLog> words = wordLogRepo.findByUserIdAndDateBetweenOrderByDateAsc(
-                auth.currentUserId(), from, to);
+    public ResponseEntity<?> daily(
+            @RequestParam(defaultValue = "30d") String range,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        Granularity g;
+        try {
+            g = Granularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid granularity"));
+        }
 
-        Map<String, Integer> minutesByDate = sessions.stream()
-                .collect(Collectors.groupingBy(
-                        s -> s.getStartTime().toLocalDate().toString(),
-                        Collectors.summingInt(s -> (int) java.time.Duration.between(s.getStartTime(), s.getEndTime()).toMinutes())
-                ));
+        if (to == null) to = LocalDate.now(auth.currentZone());
+        if (from == null) {
+            int days = range.equals("30d") ? 30 : (range.equals("7d") ? 7 : 30);
+            from = to.minusDays(days - 1);
+        }
+        if (from.isAfter(to)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "from must not be after to"));
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Range too large"));
+        }
 
-        Map<String, Integer> wordsByDate = words.stream()
-                .collect(Collectors.groupingBy(
-                        w -> w.getDate().toString(),
-                        Collectors.summingInt(WordLog::getCount)
-                ));
+        // 默认区间随日期变化，ETag 需带上实际的起止日期
+        Long uid = auth.currentUserId();
+        String scope = "daily:" + g + ":" + from + ":" + to;
+        LocalDate rangeFrom = from, rangeTo = to;
+        return versions.conditional(ifNoneMatch, uid, scope, () -> buckets(uid, g, rangeFrom, rangeTo));
+    }
 
-        List<Map<String, Object>> result = new ArrayList<>();
-        LocalDate current = from;
-        while (!current.isAfter(to)) {
-            String dateStr = current.toString();
-            Map<String, Object> day = new HashMap<>();
-            day.put("date", dateStr);
-            day.put("minutes", minutesByDate.getOrDefault(dateStr, 0));
-            day.put("words", wordsByDate.getOrDefault(dateStr, 0));
-            result.add(day);
-            current = current.plusDays(1);
+    /**
+     * 一年的日历热力图，按科目给出每天的学习时长和背词数，见 {@link Heatmap}。
+     * 每个科目两个 int 数组，不再为每一天生成一个对象。
+     */
+    @GetMapping("/heatmap")
+    public ResponseEntity<?> heatmap(
+            @RequestParam(required = false) Integer year,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        int y = year != null ? year : LocalDate.now(auth.currentZone()).getYear();
+        if (y < MIN_YEAR || y > MAX_YEAR) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid year"));
         }
-        return result;
+        Long uid = auth.currentUserId();
+        return versions.conditional(ifNoneMatch, uid, "heatmap:" + y, () -> Heatmap.of(y,
+                statsRepo.findHeatmapRows(uid, LocalDate.of(y, 1, 1), LocalDate.of(y, 12, 31))));
     }
-}
-
-
-
-
-
-
 
+    private List<Map<String, Object>> buckets(Long uid, Granularity g, LocalDate from, LocalDate to) {
+        // 聚合在数据库里完成，每个桶只返回一行
+        return StatsBucket.fill(statsRepo.sumBy(g, uid, from, to), g, from, to);
+    }
+}
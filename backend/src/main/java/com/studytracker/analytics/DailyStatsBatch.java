@@ -0,0 +1,36 @@
+package com.studytracker.analytics;
+
+import com.studytracker.study.StudySession;
+import com.studytracker.words.WordLog;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 批量写入时先在内存中按 用户/日期/科目 合并增量，再由 {@link DailyStatsService#apply} 一次性写入。
+ */
+public class DailyStatsBatch {
+    // 值依次为 minutes, words, sessions
+    private final Map<DailyUserStat.Key, int[]> deltas = new HashMap<>();
+
+    public void addSession(StudySession s, ZoneId zone) {
+        int[] d = delta(s.getUserId(), DailyStatsService.dayOf(s, zone), s.getSubjectId());
+        d[0] += DailyStatsService.minutesOf(s);
+        d[2]++;
+    }
+
+    public void addWords(WordLog wl) {
+        int[] d = delta(wl.getUserId(), wl.getDate(), DailyStatsService.subjectKey(wl.getSubjectId()));
+        d[1] += wl.getCount();
+    }
+
+    Map<DailyUserStat.Key, int[]> deltas() {
+        return deltas;
+    }
+
+    private int[] delta(Long userId, LocalDate day, Long subjectId) {
+        return deltas.computeIfAbsent(new DailyUserStat.Key(userId, day, subjectId), k -> new int[3]);
+    }
+}
@@ -0,0 +1,85 @@
+package com.studytracker.analytics;
+
+import com.studytracker.study.StudySession;
+import com.studytracker.words.WordLog;
+import jakarta.transaction.Transactional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 维护 daily_user_stats 汇总表，调用方需在写入原始记录的同一事务中调用。
+ */
+@Service
+public class DailyStatsService {
+    /** 未关联科目的背词记录归到 subject_id = 0 */
+    public static final long NO_SUBJECT = 0L;
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO daily_user_stats (user_id, stat_date, subject_id, minutes, words, sessions)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE minutes = minutes + VALUES(minutes),
+                                    words = words + VALUES(words),
+                                    sessions = sessions + VALUES(sessions)
+            """;
+    private static final int BATCH_SIZE = 500;
+
+    private final DailyUserStatRepository repo;
+    private final JdbcTemplate jdbc;
+
+    public DailyStatsService(DailyUserStatRepository repo, JdbcTemplate jdbc) {
+        this.repo = repo;
+        this.jdbc = jdbc;
+    }
+
+    @Transactional
+    public void recordSession(StudySession s, ZoneId zone) {
+        repo.increment(s.getUserId(), dayOf(s, zone), s.getSubjectId(), minutesOf(s), 0, 1);
+    }
+
+    @Transactional
+    public void recordWords(WordLog wl) {
+        repo.increment(wl.getUserId(), wl.getDate(), subjectKey(wl.getSubjectId()), 0, wl.getCount(), 0);
+    }
+
+    /** 把批量导入合并后的增量用 JDBC batch 写入，每个 用户/日期/科目 一条 upsert */
+    @Transactional
+    public void apply(DailyStatsBatch batch) {
+        List<Map.Entry<DailyUserStat.Key, int[]>> rows = new ArrayList<>(batch.deltas().entrySet());
+        jdbc.batchUpdate(UPSERT_SQL, rows, BATCH_SIZE, (ps, row) -> {
+            DailyUserStat.Key key = row.getKey();
+            int[] d = row.getValue();
+            ps.setLong(1, key.getUserId());
+            ps.setObject(2, key.getStatDate());
+            ps.setLong(3, key.getSubjectId());
+            ps.setInt(4, d[0]);
+            ps.setInt(5, d[1]);
+            ps.setInt(6, d[2]);
+        });
+    }
+
+    @Transactional
+    public int removeSubject(Long subjectId) {
+        return repo.deleteBySubjectId(subjectId);
+    }
+
+    /** 学习时长按用户时区下开始时间所在的日期归档 */
+    public static LocalDate dayOf(StudySession s, ZoneId zone) {
+        return s.getStartTime().atZone(ZoneOffset.UTC).withZoneSameInstant(zone).toLocalDate();
+    }
+
+    static int minutesOf(StudySession s) {
+        return (int) Duration.between(s.getStartTime(), s.getEndTime()).toMinutes();
+    }
+
+    public static long subjectKey(Long subjectId) {
+        return subjectId != null ? subjectId : NO_SUBJECT;
+    }
+}
@@ -0,0 +1,43 @@
+package com.studytracker.analytics;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "daily_user_stats")
+@IdClass(DailyUserStat.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class DailyUserStat {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+    @Id
+    @Column(name = "subject_id")
+    private Long subjectId;
+    private Integer minutes;
+    private Integer words;
+    private Integer sessions;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long userId;
+        private LocalDate statDate;
+        private Long subjectId;
+    }
+}
@@ -0,0 +1,88 @@
+package com.studytracker.analytics;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyUserStatRepository extends JpaRepository<DailyUserStat, DailyUserStat.Key> {
+    @Transactional(readOnly = true)
+    List<DailyUserStat> findByUserIdAndStatDateBetween(Long userId, LocalDate from, LocalDate to);
+
+    @Query(value = """
+            SELECT stat_date AS bucket, SUM(minutes), SUM(words)
+            FROM daily_user_stats
+            WHERE user_id = :userId AND stat_date BETWEEN :from AND :to
+            GROUP BY bucket ORDER BY bucket
+            """, nativeQuery = true)
+    List<Object[]> sumByDay(@Param("userId") Long userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query(value = """
+            SELECT DATE_SUB(stat_date, INTERVAL WEEKDAY(stat_date) DAY) AS bucket, SUM(minutes), SUM(words)
+            FROM daily_user_stats
+            WHERE user_id = :userId AND stat_date BETWEEN :from AND :to
+            GROUP BY bucket ORDER BY bucket
+            """, nativeQuery = true)
+    List<Object[]> sumByWeek(@Param("userId") Long userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query(value = """
+            SELECT DATE_SUB(stat_date, INTERVAL DAYOFMONTH(stat_date) - 1 DAY) AS bucket, SUM(minutes), SUM(words)
+            FROM daily_user_stats
+            WHERE user_id = :userId AND stat_date BETWEEN :from AND :to
+            GROUP BY bucket ORDER BY bucket
+            """, nativeQuery = true)
+    List<Object[]> sumByMonth(@Param("userId") Long userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /** 按天、科目的明细（热力图、连续达标），只取四列，不创建实体 */
+    @Transactional(readOnly = true)
+    @Query("""
+            SELECT d.statDate, d.subjectId, d.minutes, d.words FROM DailyUserStat d
+            WHERE d.userId = :userId AND d.statDate BETWEEN :from AND :to
+            ORDER BY d.subjectId
+            """)
+    List<Object[]> findHeatmapRows(@Param("userId") Long userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /** 全部历史，按日期升序；连续达标重算用，行数为有记录的 天 x 科目 */
+    @Query("""
+            SELECT d.statDate, d.subjectId, d.minutes, d.words FROM DailyUserStat d
+            WHERE d.userId = :userId
+            ORDER BY d.statDate
+            """)
+    List<Object[]> findDayRows(@Param("userId") Long userId);
+
+    /** 统计查询最重，只读事务走从库（配置了从库时） */
+    @Transactional(readOnly = true)
+    default List<StatsBucket> sumBy(Granularity granularity, Long userId, LocalDate from, LocalDate to) {
+        List<Object[]> rows = switch (granularity) {
+            case DAY -> sumByDay(userId, from, to);
+            case WEEK -> sumByWeek(userId, from, to);
+            case MONTH -> sumByMonth(userId, from, to);
+        };
+        return rows.stream().map(StatsBucket::fromRow).toList();
+    }
+
+    /** 原生 DML 需声明影响的表，否则每次调用都会清空整个二级缓存 */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "daily_user_stats"))
+    @Query(value = """
+            INSERT INTO daily_user_stats (user_id, stat_date, subject_id, minutes, words, sessions)
+            VALUES (:userId, :statDate, :subjectId, :minutes, :words, :sessions)
+            ON DUPLICATE KEY UPDATE minutes = minutes + VALUES(minutes),
+                                    words = words + VALUES(words),
+                                    sessions = sessions + VALUES(sessions)
+            """, nativeQuery = true)
+    void increment(@Param("userId") Long userId, @Param("statDate") LocalDate statDate,
+                   @Param("subjectId") Long subjectId, @Param("minutes") int minutes,
+                   @Param("words") int words, @Param("sessions") int sessions);
+
+    @Modifying
+    @Query("DELETE FROM DailyUserStat d WHERE d.subjectId = :subjectId")
+    int deleteBySubjectId(@Param("subjectId") Long subjectId);
+}
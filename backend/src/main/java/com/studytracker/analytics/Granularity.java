@@ -0,0 +1,35 @@
+package com.studytracker.analytics;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * analytics 的聚合粒度，周从周一开始，与 MySQL WEEKDAY() 一致。
+ */
+public enum Granularity {
+    DAY {
+        @Override
+        public LocalDate bucketStart(LocalDate date) { return date; }
+
+        @Override
+        public LocalDate next(LocalDate bucket) { return bucket.plusDays(1); }
+    },
+    WEEK {
+        @Override
+        public LocalDate bucketStart(LocalDate date) { return date.with(DayOfWeek.MONDAY); }
+
+        @Override
+        public LocalDate next(LocalDate bucket) { return bucket.plusWeeks(1); }
+    },
+    MONTH {
+        @Override
+        public LocalDate bucketStart(LocalDate date) { return date.withDayOfMonth(1); }
+
+        @Override
+        public LocalDate next(LocalDate bucket) { return bucket.plusMonths(1); }
+    };
+
+    public abstract LocalDate bucketStart(LocalDate date);
+
+    public abstract LocalDate next(LocalDate bucket);
+}
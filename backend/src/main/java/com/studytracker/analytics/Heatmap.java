@@ -0,0 +1,49 @@
+package com.studytracker.analytics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一年的日历热力图。数组下标为 dayOfYear - 1，长度为当年天数；
+ * 整年都为 0 的数组不输出（只记时长或只背词的科目只有一个数组）。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record Heatmap(int year, int days, int[] minutes, int[] words, List<Series> subjects) {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Series(long subjectId, int[] minutes, int[] words) {}
+
+    /** 行为 statDate, subjectId, minutes, words，每个 (日期, 科目) 一行 */
+    public static Heatmap of(int year, List<Object[]> rows) {
+        int days = Year.of(year).length();
+        int[] minutes = new int[days];
+        int[] words = new int[days];
+        Map<Long, int[][]> bySubject = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            int day = ((LocalDate) row[0]).getDayOfYear() - 1;
+            int[][] series = bySubject.computeIfAbsent((Long) row[1], id -> new int[2][days]);
+            int m = ((Number) row[2]).intValue();
+            int w = ((Number) row[3]).intValue();
+            series[0][day] += m;
+            series[1][day] += w;
+            minutes[day] += m;
+            words[day] += w;
+        }
+        List<Series> subjects = new ArrayList<>(bySubject.size());
+        bySubject.forEach((id, series) -> subjects.add(new Series(id, nonZero(series[0]), nonZero(series[1]))));
+        return new Heatmap(year, days, minutes, words, subjects);
+    }
+
+    private static int[] nonZero(int[] values) {
+        for (int v : values) {
+            if (v != 0) return values;
+        }
+        return null;
+    }
+}
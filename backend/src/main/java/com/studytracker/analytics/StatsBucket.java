@@ -0,0 +1,38 @@
+package com.studytracker.analytics;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一个时间桶内的汇总值，bucket 为桶的起始日期。
+ */
+public record StatsBucket(LocalDate bucket, int minutes, int words) {
+
+    /** 原生聚合查询的一行：bucket, SUM(minutes), SUM(words) */
+    static StatsBucket fromRow(Object[] row) {
+        LocalDate bucket = row[0] instanceof java.sql.Date d ? d.toLocalDate() : (LocalDate) row[0];
+        return new StatsBucket(bucket, ((Number) row[1]).intValue(), ((Number) row[2]).intValue());
+    }
+
+    /** 把聚合结果铺成 [from, to] 内连续的桶，没有数据的桶补 0 */
+    public static List<Map<String, Object>> fill(List<StatsBucket> buckets, Granularity g, LocalDate from, LocalDate to) {
+        Map<LocalDate, StatsBucket> byBucket = new HashMap<>();
+        for (StatsBucket bucket : buckets) {
+            byBucket.put(bucket.bucket(), bucket);
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (LocalDate current = g.bucketStart(from); !current.isAfter(to); current = g.next(current)) {
+            StatsBucket bucket = byBucket.get(current);
+            Map<String, Object> point = new HashMap<>();
+            point.put("date", current.toString());
+            point.put("minutes", bucket != null ? bucket.minutes() : 0);
+            point.put("words", bucket != null ? bucket.words() : 0);
+            result.add(point);
+        }
+        return result;
+    }
+}
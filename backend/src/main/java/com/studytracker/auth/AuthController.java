@@ -1,41 +1,75 @@
 package com.studytracker.auth;
 
 import com.studytracker.security.JwtService;
+import com.studytracker.security.PasswordHashingRejectedException;
+import com.studytracker.security.TokenRevocations;
 import com.studytracker.support.AuthUtils;
+import com.studytracker.support.UserZones;
 import com.studytracker.user.User;
 import com.studytracker.user.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/auth")
 @Slf4j
 public class AuthController {
+    private static final int MAX_BULK_INVITE_CODES = 10_000;
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
     private final InviteCodeRepository inviteCodeRepository;
     private final InviteCodeService inviteCodeService;
+    private final InviteCodeBulkInserter inviteCodeBulkInserter;
     private final AuthUtils authUtils;
+    private final MeterRegistry meterRegistry;
+    private final TokenRevocations revocations;
+    private final long refreshReuseGraceSeconds;
+    private final TransactionTemplate tx;
+    private final RefreshHandoffs handoffs;
 
-    public AuthController(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager, JwtService jwtService, InviteCodeRepository inviteCodeRepository, InviteCodeService inviteCodeService, AuthUtils authUtils) {
+    public AuthController(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager, JwtService jwtService, InviteCodeRepository inviteCodeRepository, InviteCodeService inviteCodeService, InviteCodeBulkInserter inviteCodeBulkInserter, AuthUtils authUtils, MeterRegistry meterRegistry,
+                          TokenRevocations revocations, @Value("${app.jwt.refresh-reuse-grace-seconds:10}") long refreshReuseGraceSeconds,
+                          TransactionTemplate tx, RefreshHandoffs handoffs) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtService = jwtService;
         this.inviteCodeRepository = inviteCodeRepository;
         this.inviteCodeService = inviteCodeService;
+        this.inviteCodeBulkInserter = inviteCodeBulkInserter;
         this.authUtils = authUtils;
+        this.meterRegistry = meterRegistry;
+        this.revocations = revocations;
+        this.refreshReuseGraceSeconds = refreshReuseGraceSeconds;
+        this.tx = tx;
+        this.handoffs = handoffs;
     }
 
     @PostMapping("/invite-codes")
@@ -52,62 +86,117 @@ public class AuthController {
             }
         }
         
-        String code = inviteCodeService.generateInviteCode();
+        Long uid = authUtils.currentUserId();
         InviteCode inviteCode = new InviteCode();
-        inviteCode.setCode(code);
-        inviteCode.setCreatedBy(authUtils.currentUserId());
+        inviteCode.setCreatedBy(uid);
         inviteCode.setCreatedAt(Instant.now());
         inviteCode.setExpiresAt(Instant.now().plusSeconds(days * 86400L));
-        inviteCodeRepository.save(inviteCode);
+        // 与已有邀请码撞上唯一约束时换一个重试
+        for (int attempt = 1; ; attempt++) {
+            inviteCode.setCode(inviteCodeService.generateInviteCode());
+            try {
+                inviteCodeRepository.save(inviteCode);
+                break;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == 3) throw e;
+                inviteCode.setId(null);
+                log.warn("auth: invite code collision attempt={}", attempt);
+            }
+        }
         
-        log.info("auth: invite code created code={} by userId={}", code, authUtils.currentUserId());
-        return ResponseEntity.ok(Map.of("code", code, "expiresAt", inviteCode.getExpiresAt().toString()));
+        log.info("auth: invite code created code={} by userId={}", inviteCode.getCode(), uid);
+        return ResponseEntity.ok(Map.of("code", inviteCode.getCode(), "expiresAt", inviteCode.getExpiresAt().toString()));
+    }
+
+    /**
+     * 一次生成一批邀请码（按班级发放），以 CSV 返回：code,expiresAt
+     */
+    @PostMapping("/invite-codes/bulk")
+    public ResponseEntity<?> createInviteCodesBulk(@RequestParam int count,
+                                                   @RequestParam(defaultValue = "30") int expiresInDays) {
+        if (count < 1 || count > MAX_BULK_INVITE_CODES) {
+            return ResponseEntity.badRequest().body(Map.of("error", "count must be between 1 and " + MAX_BULK_INVITE_CODES));
+        }
+        if (expiresInDays < 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid expiresInDays"));
+        }
+        Long uid = authUtils.currentUserId();
+        Instant now = Instant.now();
+        Instant expiresAt = now.plusSeconds(expiresInDays * 86400L);
+        List<String> codes = inviteCodeBulkInserter.create(count, uid, now, expiresAt);
+        log.info("auth: bulk invite codes created count={} by userId={}", codes.size(), uid);
+
+        String expires = expiresAt.toString();
+        StreamingResponseBody body = out -> {
+            Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            w.write("code,expiresAt\n");
+            for (String code : codes) {
+                w.write(code);
+                w.write(',');
+                w.write(expires);
+                w.write('\n');
+            }
+            w.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"invite-codes.csv\"")
+                .body(body);
     }
 
+    /**
+     * BCrypt 在事务外完成；事务内只有插入用户和一条条件 UPDATE 兑换邀请码，
+     * 并发注册同一邀请码时只有一个能更新成功，其余回滚。
+     */
     @PostMapping("/register")
     public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest req) {
         log.info("auth: register attempt email={}", req.email());
-        
-        // 验证邮箱是否已存在
-        if (userRepository.findByEmail(req.email()).isPresent()) {
+
+        String passwordHash = passwordEncoder.encode(req.password());
+        User u = new User();
+        u.setEmail(req.email());
+        u.setPasswordHash(passwordHash);
+        u.setNickname(req.nickname());
+
+        boolean redeemed;
+        try {
+            redeemed = Boolean.TRUE.equals(tx.execute(status -> {
+                userRepository.save(u);
+                if (inviteCodeRepository.redeem(req.inviteCode(), u.getId(), Instant.now()) == 1) {
+                    return true;
+                }
+                status.setRollbackOnly();
+                return false;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            // 邮箱唯一约束冲突；其他约束错误照常抛出
+            if (userRepository.findByEmail(req.email()).isEmpty()) throw e;
             log.warn("auth: register conflict email already exists email={}", req.email());
+            outcome("register", "email_taken");
             return ResponseEntity.badRequest().body(Map.of("error", "Email already registered"));
         }
-        
-        // 验证邀请码
-        InviteCode inviteCode = inviteCodeRepository.findByCode(req.inviteCode())
-                .orElse(null);
-        
-        if (inviteCode == null) {
-            log.warn("auth: register invalid invite code");
-            return ResponseEntity.badRequest().body(Map.of("error", "邀请码无效"));
-        }
-        
-        if (inviteCode.getUsedBy() != null) {
-            log.warn("auth: register invite code already used code={}", req.inviteCode());
-            return ResponseEntity.badRequest().body(Map.of("error", "邀请码已被使用"));
-        }
-        
-        if (inviteCode.getExpiresAt() != null && inviteCode.getExpiresAt().isBefore(Instant.now())) {
+
+        if (!redeemed) {
+            // 只在失败时多查一次，区分具体原因
+            InviteCode inviteCode = inviteCodeRepository.findByCode(req.inviteCode()).orElse(null);
+            if (inviteCode == null) {
+                log.warn("auth: register invalid invite code");
+                outcome("register", "invalid_invite");
+                return ResponseEntity.badRequest().body(Map.of("error", "邀请码无效"));
+            }
+            if (inviteCode.getUsedBy() != null) {
+                log.warn("auth: register invite code already used code={}", req.inviteCode());
+                outcome("register", "invite_used");
+                return ResponseEntity.badRequest().body(Map.of("error", "邀请码已被使用"));
+            }
             log.warn("auth: register invite code expired code={}", req.inviteCode());
+            outcome("register", "invite_expired");
             return ResponseEntity.badRequest().body(Map.of("error", "邀请码已过期"));
         }
-        
-        User u = new User();
-        u.setEmail(req.email());
-        u.setPasswordHash(passwordEncoder.encode(req.password()));
-        u.setNickname(req.nickname());
-        userRepository.save(u);
-        
-        // 标记邀请码为已使用
-        inviteCode.setUsedBy(u.getId());
-        inviteCode.setUsedAt(Instant.now());
-        inviteCodeRepository.save(inviteCode);
-        
-        String access = jwtService.generateAccessToken(u.getEmail(), Map.of("uid", u.getId()));
-        String refresh = jwtService.generateRefreshToken(u.getEmail());
+
         log.info("auth: register success uid={} email={}", u.getId(), u.getEmail());
-        return ResponseEntity.ok(new TokenResponse(access, refresh));
+        outcome("register", "success");
+        return ResponseEntity.ok(issueTokens(u.getEmail(), accessClaims(u), newFamily()));
     }
 
     @PostMapping("/login")
@@ -117,27 +206,150 @@ public class AuthController {
             Authentication auth = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(req.email(), req.password()));
             String email = auth.getName();
             User u = userRepository.findByEmail(email).orElseThrow();
-            String access = jwtService.generateAccessToken(email, Map.of("uid", u.getId()));
-            String refresh = jwtService.generateRefreshToken(email);
             log.info("auth: login success uid={} email={}", u.getId(), email);
-            return ResponseEntity.ok(new TokenResponse(access, refresh));
+            outcome("login", "success");
+            return ResponseEntity.ok(issueTokens(email, accessClaims(u), newFamily()));
+        } catch (PasswordHashingRejectedException e) {
+            // 交给全局异常处理返回 429，不当作登录失败
+            outcome("login", "rejected");
+            throw e;
         } catch (org.springframework.security.authentication.BadCredentialsException e) {
             log.warn("auth: login bad credentials email={}", req.email());
+            outcome("login", "bad_credentials");
             return ResponseEntity.status(401).body(Map.of("error", "邮箱或密码错误"));
         } catch (Exception e) {
             log.error("auth: login error email={} msg={}", req.email(), e.getMessage());
+            outcome("login", "error");
             return ResponseEntity.status(401).body(Map.of("error", "登录失败: " + e.getMessage()));
         }
     }
 
+    /**
+     * 轮换 refresh token：旧 token 作废，签发同一 family 下的新 token。
+     * 轮换和吊销以数据库为准，多实例下同一个 token 只能换发一次；
+     * 已轮换的 token 超出宽限期后再次出现视为被盗用，整条 family 作废。
+     * 新 token 里的时区从（缓存的）用户重新读取，修改时区后下一次刷新即生效。
+     */
     @PostMapping("/refresh")
-    public ResponseEntity<?> refresh(@RequestBody RefreshRequest req) {
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshRequest req) {
         log.debug("auth: refresh token request");
-        String subject = jwtService.extractSubject(req.refreshToken());
-        User u = userRepository.findByEmail(subject).orElseThrow();
-        String access = jwtService.generateAccessToken(subject, Map.of("uid", u.getId()));
-        String refresh = jwtService.generateRefreshToken(subject);
-        log.debug("auth: refresh success uid={} email={}", u.getId(), subject);
-        return ResponseEntity.ok(new TokenResponse(access, refresh));
+        Claims claims;
+        try {
+            claims = jwtService.parseClaims(req.refreshToken());
+        } catch (JwtException | IllegalArgumentException e) {
+            outcome("refresh", "invalid");
+            return ResponseEntity.status(401).body(Map.of("error", "Invalid refresh token"));
+        }
+        String subject = claims.getSubject();
+        Number uid = claims.get("uid", Number.class);
+        if (!JwtService.REFRESH_TYPE.equals(claims.get(JwtService.TYPE_CLAIM, String.class))) {
+            if (uid != null) {
+                // 带 uid 但没有 typ 的是 access token
+                outcome("refresh", "invalid");
+                return ResponseEntity.status(401).body(Map.of("error", "Invalid refresh token"));
+            }
+            // 升级前签发的 refresh token 没有 jti/family，查一次库后换发新格式
+            User u = userRepository.findByEmail(subject).orElse(null);
+            if (u == null || claims.getIssuedAt() == null
+                    || revocations.isRefreshRevoked(null, u.getId(), JwtService.issuedAtMillis(claims))) {
+                outcome("refresh", "invalid");
+                return ResponseEntity.status(401).body(Map.of("error", "Invalid refresh token"));
+            }
+            // 没有 jti，以 token 哈希作为一次性标记，只能换发一次
+            String marker = "legacy:" + JwtService.digest(req.refreshToken());
+            Long usedAt = revocations.rotate(marker);
+            if (usedAt != null) {
+                return alreadyRotated(marker, usedAt, null, u.getId());
+            }
+            outcome("refresh", "legacy");
+            TokenResponse tokens = issueTokens(subject, accessClaims(u), newFamily());
+            handoffs.save(marker, tokens);
+            return ResponseEntity.ok(tokens);
+        }
+
+        String family = claims.get(JwtService.FAMILY_CLAIM, String.class);
+        if (revocations.isRefreshRevoked(family, uid.longValue(), JwtService.issuedAtMillis(claims))) {
+            outcome("refresh", "revoked");
+            return ResponseEntity.status(401).body(Map.of("error", "Refresh token revoked"));
+        }
+        Long rotatedAt = revocations.rotate(claims.getId());
+        if (rotatedAt != null) {
+            return alreadyRotated(claims.getId(), rotatedAt, family, uid.longValue());
+        }
+
+        User u = userRepository.findByEmail(subject).orElse(null);
+        if (u == null || !u.getId().equals(uid.longValue())) {
+            outcome("refresh", "invalid");
+            return ResponseEntity.status(401).body(Map.of("error", "Invalid refresh token"));
+        }
+        log.debug("auth: refresh success uid={} email={}", uid, subject);
+        outcome("refresh", "success");
+        TokenResponse tokens = issueTokens(subject, accessClaims(u), family);
+        handoffs.save(claims.getId(), tokens);
+        return ResponseEntity.ok(tokens);
+    }
+
+    /**
+     * 同一个 refresh token 再次出现。宽限期内是多个标签页并发刷新：返回第一次签发的那一对，
+     * 还没签发完时返回 409 让客户端稍后重试；超出宽限期视为盗用，作废整条 family。
+     */
+    private ResponseEntity<?> alreadyRotated(String key, long rotatedAt, String family, Long uid) {
+        if (System.currentTimeMillis() - rotatedAt > refreshReuseGraceSeconds * 1000) {
+            log.warn("auth: refresh token reuse detected uid={} family={}", uid, family);
+            if (family != null) revocations.revokeFamily(family);
+            outcome("refresh", "reuse");
+            return ResponseEntity.status(401).body(Map.of("error", "Refresh token already used"));
+        }
+        return handoffs.find(key)
+                .<ResponseEntity<?>>map(issued -> {
+                    outcome("refresh", "concurrent");
+                    return ResponseEntity.ok(issued);
+                })
+                .orElseGet(() -> {
+                    outcome("refresh", "concurrent_retry");
+                    return ResponseEntity.status(409).body(Map.of("error", "Refresh token rotation in progress"));
+                });
+    }
+
+    /** 退出当前设备：作废该 refresh token 所在的整条 family */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@Valid @RequestBody RefreshRequest req) {
+        try {
+            Claims claims = jwtService.parseClaims(req.refreshToken());
+            String family = claims.get(JwtService.FAMILY_CLAIM, String.class);
+            if (family != null) revocations.revokeFamily(family);
+        } catch (JwtException | IllegalArgumentException e) {
+            // token 本身无效或已过期，等同于已退出
+            log.debug("auth: logout with invalid token msg={}", e.getMessage());
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /** 退出所有设备：此前签发的 access/refresh token 全部失效 */
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutAll() {
+        Long uid = authUtils.currentUserId();
+        revocations.revokeUser(uid);
+        log.info("auth: logout everywhere uid={}", uid);
+        return ResponseEntity.noContent().build();
+    }
+
+    private TokenResponse issueTokens(String email, Map<String, Object> userClaims, String family) {
+        return new TokenResponse(jwtService.generateAccessToken(email, userClaims),
+                jwtService.generateRefreshToken(email, family, userClaims));
+    }
+
+    private static String newFamily() {
+        return UUID.randomUUID().toString();
+    }
+
+    /** auth.attempts{action, outcome}：按结果统计登录/注册/刷新次数 */
+    private void outcome(String action, String outcome) {
+        meterRegistry.counter("auth.attempts", "action", action, "outcome", outcome).increment();
+    }
+
+    /** access token 里带上 uid 和时区，过滤器据此构造 principal */
+    private static Map<String, Object> accessClaims(User u) {
+        return Map.of("uid", u.getId(), "tz", UserZones.of(u.getTimezone()).getId());
     }
 }
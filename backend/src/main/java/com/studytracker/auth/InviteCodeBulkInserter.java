@@ -0,0 +1,82 @@
+package com.studytracker.auth;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 批量生成并写入邀请码。先按批查出与库中已有邀请码的冲突并替换，
+ * 再在一个事务里批量插入；与并发写入撞上唯一约束时整批回滚重试。
+ */
+@Component
+@Slf4j
+public class InviteCodeBulkInserter {
+    private static final String INSERT_SQL =
+            "INSERT INTO invite_codes (code, created_by, created_at, expires_at) VALUES (?, ?, ?, ?)";
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final InviteCodeService generator;
+
+    public InviteCodeBulkInserter(JdbcTemplate jdbc, TransactionTemplate tx, InviteCodeService generator) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.generator = generator;
+    }
+
+    public List<String> create(int count, Long createdBy, Instant createdAt, Instant expiresAt) {
+        LocalDateTime created = LocalDateTime.ofInstant(createdAt, ZoneOffset.UTC);
+        LocalDateTime expires = LocalDateTime.ofInstant(expiresAt, ZoneOffset.UTC);
+        for (int attempt = 1; ; attempt++) {
+            List<String> codes = uniqueCodes(count);
+            try {
+                tx.executeWithoutResult(status -> jdbc.batchUpdate(INSERT_SQL, codes, BATCH_SIZE, (ps, code) -> {
+                    ps.setString(1, code);
+                    ps.setLong(2, createdBy);
+                    ps.setObject(3, created);
+                    ps.setObject(4, expires);
+                }));
+                return codes;
+            } catch (DuplicateKeyException e) {
+                if (attempt == MAX_ATTEMPTS) throw e;
+                log.warn("auth: invite code collision on bulk insert count={} attempt={}", count, attempt);
+            }
+        }
+    }
+
+    /** 生成 count 个库中不存在的邀请码 */
+    private List<String> uniqueCodes(int count) {
+        Set<String> codes = generator.generateInviteCodes(count);
+        List<String> existing;
+        while (!(existing = findExisting(new ArrayList<>(codes))).isEmpty()) {
+            existing.forEach(codes::remove);
+            while (codes.size() < count) {
+                codes.add(generator.generateInviteCode());
+            }
+        }
+        return new ArrayList<>(codes);
+    }
+
+    private List<String> findExisting(List<String> codes) {
+        List<String> existing = new ArrayList<>();
+        for (int from = 0; from < codes.size(); from += BATCH_SIZE) {
+            List<String> chunk = codes.subList(from, Math.min(from + BATCH_SIZE, codes.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            existing.addAll(jdbc.queryForList("SELECT code FROM invite_codes WHERE code IN (" + placeholders + ")",
+                    String.class, chunk.toArray()));
+        }
+        return existing;
+    }
+}
@@ -1,11 +1,22 @@
 package com.studytracker.auth;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.Optional;
 
 public interface InviteCodeRepository extends JpaRepository<InviteCode, Long> {
     
     Optional<InviteCode> findByCode(String code);
-}
 
+    /** 未使用且未过期时兑换，返回更新行数；并发兑换同一邀请码只有一个返回 1 */
+    @Modifying
+    @Query("""
+            UPDATE InviteCode c SET c.usedBy = :userId, c.usedAt = :now
+            WHERE c.code = :code AND c.usedBy IS NULL AND (c.expiresAt IS NULL OR c.expiresAt > :now)
+            """)
+    int redeem(@Param("code") String code, @Param("userId") Long userId, @Param("now") Instant now);
+}
@@ -2,23 +2,35 @@ package com.studytracker.auth;
 
 import org.springframework.stereotype.Service;
 
-import java.util.Random;
+import java.security.SecureRandom;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 @Service
 public class InviteCodeService {
-    
-    private final Random random = new Random();
+    private static final String CHARS = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789"; // 移除容易混淆的字符
+    private static final int LENGTH = 8;
+
+    // 邀请码即注册凭证，不能可预测
+    private final SecureRandom random = new SecureRandom();
     
     /**
      * 生成8位字母数字混合邀请码
      */
     public String generateInviteCode() {
-        String chars = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789"; // 移除容易混淆的字符
-        StringBuilder code = new StringBuilder();
-        for (int i = 0; i < 8; i++) {
-            code.append(chars.charAt(random.nextInt(chars.length())));
+        char[] code = new char[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            code[i] = CHARS.charAt(random.nextInt(CHARS.length()));
         }
-        return code.toString();
+        return new String(code);
     }
-}
 
+    /** 生成 count 个互不相同的邀请码，保持生成顺序 */
+    public Set<String> generateInviteCodes(int count) {
+        Set<String> codes = new LinkedHashSet<>(count * 2);
+        while (codes.size() < count) {
+            codes.add(generateInviteCode());
+        }
+        return codes;
+    }
+}
@@ -0,0 +1,56 @@
+package com.studytracker.auth;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+/**
+ * 宽限期内的并发刷新：第一次轮换签发的 token 记在 token_rotations 那一行上，
+ * 其他标签页拿同一个旧 refresh token 刷新时，不论落到哪个实例都取回同一对。
+ * 只保留 refresh-reuse-grace-seconds，之后清空，库里不长期存放可用的 token。
+ */
+@Component
+@Slf4j
+class RefreshHandoffs {
+    private final JdbcTemplate jdbc;
+    private final long graceSeconds;
+
+    RefreshHandoffs(JdbcTemplate jdbc, @Value("${app.jwt.refresh-reuse-grace-seconds:10}") long graceSeconds) {
+        this.jdbc = jdbc;
+        this.graceSeconds = graceSeconds;
+    }
+
+    /** jti 的轮换记录由 TokenRevocations.rotate 插入，这里只补上签发结果 */
+    void save(String jti, TokenResponse tokens) {
+        jdbc.update("UPDATE token_rotations SET access_token = ?, refresh_token = ? WHERE jti = ?",
+                tokens.accessToken(), tokens.refreshToken(), jti);
+    }
+
+    /** 第一次轮换尚未签发完成或已过宽限期时为空 */
+    Optional<TokenResponse> find(String jti) {
+        return jdbc.query("""
+                SELECT access_token, refresh_token FROM token_rotations
+                WHERE jti = ? AND access_token IS NOT NULL AND rotated_at >= ?
+                """, rs -> rs.next() ? Optional.of(new TokenResponse(rs.getString(1), rs.getString(2))) : Optional.empty(),
+                jti, graceCutoff());
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.handoff-clear-ms:60000}")
+    void clear() {
+        int cleared = jdbc.update("""
+                UPDATE token_rotations SET access_token = NULL, refresh_token = NULL
+                WHERE rotated_at < ? AND access_token IS NOT NULL
+                """, graceCutoff());
+        if (cleared > 0) log.debug("jwt: cleared refresh handoffs count={}", cleared);
+    }
+
+    private LocalDateTime graceCutoff() {
+        return LocalDateTime.now(ZoneOffset.UTC).minusSeconds(graceSeconds);
+    }
+}
@@ -0,0 +1,25 @@
+package com.studytracker.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.studytracker.user.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(@Value("${app.cache.users-spec}") String usersSpec) {
+        CaffeineCacheManager manager = new CaffeineCacheManager();
+        manager.setAllowNullValues(false);
+        manager.registerCustomCache(UserRepository.USERS_BY_EMAIL_CACHE, Caffeine.from(usersSpec).build());
+        // 失效推迟到事务提交后，避免并发读把旧数据重新放回缓存
+        return new TransactionAwareCacheManagerProxy(manager);
+    }
+}
@@ -0,0 +1,84 @@
+package com.studytracker.config;
+
+import com.studytracker.support.ReadRouting;
+import com.studytracker.support.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 主库连接池按 spring.datasource 配置，与自动配置相同。
+ * 设置了 app.datasource.replica-urls 时再加一层读写分离：
+ * 只读事务（@Transactional(readOnly = true)）从从库取连接，其余仍走主库；Flyway 始终直连主库。
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConditionalOnProperty("app.datasource.replica-urls")
+    public ReplicaRoutingDataSource replicaDataSource(
+            HikariDataSource primaryDataSource, DataSourceProperties properties, ReadRouting routing,
+            MeterRegistry registry, TaskScheduler scheduler,
+            @Value("${app.datasource.replica-urls}") List<String> urls,
+            @Value("${app.datasource.replica-username:${spring.datasource.username}}") String username,
+            @Value("${app.datasource.replica-password:${spring.datasource.password}}") String password,
+            @Value("${app.datasource.replica-pool-size:10}") int poolSize,
+            @Value("${app.datasource.replica-max-lag-seconds:5}") long maxLagSeconds,
+            @Value("${app.datasource.replica-lag-check-ms:2000}") long lagCheckMs) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource ds = new HikariDataSource();
+            ds.setPoolName("replica-" + i);
+            ds.setJdbcUrl(urls.get(i).trim());
+            ds.setUsername(username);
+            ds.setPassword(password);
+            ds.setDriverClassName(properties.determineDriverClassName());
+            ds.setMaximumPoolSize(poolSize);
+            ds.setReadOnly(true);
+            // 不是容器里的 bean，连接池指标需要自己挂上
+            ds.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            replicas.put(ds.getPoolName(), ds);
+        }
+        ReplicaRoutingDataSource routingDataSource =
+                new ReplicaRoutingDataSource(primaryDataSource, replicas, routing, maxLagSeconds, registry);
+        routingDataSource.scheduleLagChecks(scheduler, Duration.ofMillis(lagCheckMs));
+        return routingDataSource;
+    }
+
+    /**
+     * 事务开始时还不知道是否只读，连接要推迟到第一条 SQL 再取；
+     * 此时 Spring 已对连接调用 setReadOnly(true)，代理据此改用 readOnlyDataSource。
+     */
+    @Bean
+    @Primary
+    @ConditionalOnProperty("app.datasource.replica-urls")
+    public LazyConnectionDataSourceProxy dataSource(HikariDataSource primaryDataSource,
+                                                    ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaryDataSource);
+        proxy.setReadOnlyDataSource(replicaDataSource);
+        return proxy;
+    }
+}
@@ -1,5 +1,8 @@
 package com.studytracker.config;
 
+import com.studytracker.security.PasswordHashingRejectedException;
+import com.studytracker.support.CsvFormatException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -28,5 +31,16 @@ public class GlobalExceptionHandler {
         });
         return ResponseEntity.badRequest().body(errors);
     }
-}
 
+    @ExceptionHandler(CsvFormatException.class)
+    public ResponseEntity<Map<String, String>> handleCsvFormat(CsvFormatException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<Map<String, String>> handlePasswordHashingRejected(PasswordHashingRejectedException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(Map.of("error", "登录请求过多，请稍后重试"));
+    }
+}
@@ -0,0 +1,20 @@
+package com.studytracker.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.studytracker.support.UserZoneDateTimeSerializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.LocalDateTime;
+
+@Configuration
+public class JacksonConfig {
+
+    /** 实体里的 LocalDateTime 均为 UTC，统一按请求用户的时区输出 */
+    @Bean
+    public Module userZoneModule() {
+        return new SimpleModule("UserZoneModule")
+                .addSerializer(LocalDateTime.class, new UserZoneDateTimeSerializer());
+    }
+}
@@ -0,0 +1,32 @@
+package com.studytracker.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * 只给 /api/** 的 http.server.requests 发布百分位直方图，
+     * actuator 自身的请求不产生额外的 bucket 时间序列。
+     */
+    @Bean
+    public MeterFilter apiRequestHistograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                String uri = id.getTag("uri");
+                if ("http.server.requests".equals(id.getName()) && uri != null && uri.startsWith("/api/")) {
+                    return DistributionStatisticConfig.builder()
+                            .percentilesHistogram(true)
+                            .build()
+                            .merge(config);
+                }
+                return config;
+            }
+        };
+    }
+}
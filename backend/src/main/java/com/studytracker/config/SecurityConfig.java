@@ -1,6 +1,10 @@
 package com.studytracker.config;
 
+import com.studytracker.security.BulkheadPasswordEncoder;
 import com.studytracker.security.JwtAuthenticationFilter;
+import com.studytracker.security.TimedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -30,13 +34,29 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
     private final UserDetailsService userDetailsService;
+    private final MeterRegistry meterRegistry;
 
     @Value("${app.cors.allowed-origins:http://localhost:5173}")
     private List<String> allowedOrigins;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, UserDetailsService userDetailsService) {
+    @Value("${app.security.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    /** 0 表示取 CPU 核数 */
+    @Value("${app.security.bcrypt.threads:0}")
+    private int bcryptThreads;
+
+    @Value("${app.security.bcrypt.queue-size:64}")
+    private int bcryptQueueSize;
+
+    @Value("${app.security.bcrypt.retry-after-seconds:2}")
+    private int bcryptRetryAfterSeconds;
+
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, UserDetailsService userDetailsService,
+                          MeterRegistry meterRegistry) {
         this.jwtAuthFilter = jwtAuthFilter;
         this.userDetailsService = userDetailsService;
+        this.meterRegistry = meterRegistry;
     }
 
     @Bean
@@ -46,8 +66,12 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers(HttpMethod.POST, "/api/auth/register", "/api/auth/login", "/api/auth/refresh").permitAll()
+                        // 流式响应写完后的 async dispatch 已在原请求上鉴权过
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/auth/register", "/api/auth/login", "/api/auth/refresh", "/api/auth/logout").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/auth/invite-codes").authenticated()
+                        // actuator 在独立的管理端口上，该端口不对外暴露，供 Prometheus 抓取
+                        .requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/prometheus").permitAll()
                         .anyRequest().authenticated()
                 )
                 .authenticationProvider(authenticationProvider())
@@ -65,7 +89,9 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int threads = bcryptThreads > 0 ? bcryptThreads : Runtime.getRuntime().availableProcessors();
+        PasswordEncoder bcrypt = new TimedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), meterRegistry);
+        return new BulkheadPasswordEncoder(bcrypt, threads, bcryptQueueSize, bcryptRetryAfterSeconds, meterRegistry);
     }
 
     @Bean
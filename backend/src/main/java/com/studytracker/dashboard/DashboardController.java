@@ -0,0 +1,133 @@
+package com.studytracker.dashboard;
+
+import com.studytracker.analytics.DailyUserStatRepository;
+import com.studytracker.analytics.Granularity;
+import com.studytracker.analytics.StatsBucket;
+import com.studytracker.goal.GoalRepository;
+import com.studytracker.study.StudySessionRepository;
+import com.studytracker.subject.SubjectRepository;
+import com.studytracker.support.AuthUtils;
+import com.studytracker.support.DataVersions;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 首页一次取齐：科目、目标、今日记录、近 30 天趋势。
+ * 四个查询互不依赖，在虚拟线程上并发执行，共用一个截止时间；
+ * 任一失败或超时都会取消其余查询。
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardController {
+    private static final int TREND_DAYS = 30;
+
+    private final SubjectRepository subjectRepo;
+    private final GoalRepository goalRepo;
+    private final StudySessionRepository sessionRepo;
+    private final DailyUserStatRepository statsRepo;
+    private final AuthUtils auth;
+    private final DataVersions versions;
+    private final long timeoutMs;
+    /** 提交时带上当前 SecurityContext，子任务里的只读查询才能按用户判断是否读主库（ReadRouting） */
+    private final ExecutorService executor =
+            new DelegatingSecurityContextExecutorService(Executors.newVirtualThreadPerTaskExecutor());
+
+    public DashboardController(SubjectRepository subjectRepo, GoalRepository goalRepo,
+                               StudySessionRepository sessionRepo, DailyUserStatRepository statsRepo,
+                               AuthUtils auth, DataVersions versions,
+                               @Value("${app.dashboard.timeout-ms:3000}") long timeoutMs) {
+        this.subjectRepo = subjectRepo;
+        this.goalRepo = goalRepo;
+        this.sessionRepo = sessionRepo;
+        this.statsRepo = statsRepo;
+        this.auth = auth;
+        this.versions = versions;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @GetMapping
+    public ResponseEntity<?> get(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // 用户和时区在请求线程上解析一次，子任务直接用
+        Long uid = auth.currentUserId();
+        ZoneId zone = auth.currentZone();
+        LocalDate today = LocalDate.now(zone);
+        LocalDate from = today.minusDays(TREND_DAYS - 1);
+
+        // ETag 先于查询计算，查询期间的写入会让下一次请求拿到新版本
+        String etag = versions.etag(uid, "dashboard:" + today);
+        if (DataVersions.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        Map<String, Callable<?>> tasks = new LinkedHashMap<>();
+        tasks.put("subjects", () -> subjectRepo.findByUserIdAndArchivedFalseOrderByCreatedAtDesc(uid));
+        tasks.put("goal", () -> goalRepo.findOrCreate(uid));
+        tasks.put("today", () -> sessionRepo.findDay(uid, today, zone));
+        tasks.put("daily", () -> StatsBucket.fill(statsRepo.sumBy(Granularity.DAY, uid, from, today),
+                Granularity.DAY, from, today));
+
+        try {
+            if (etag == null) {
+                return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(invokeAll(tasks));
+            }
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(invokeAll(tasks));
+        } catch (TimeoutException e) {
+            log.warn("dashboard: timed out userId={} timeoutMs={}", uid, timeoutMs);
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(Map.of("error", "Dashboard timed out"));
+        }
+    }
+
+    private Map<String, Object> invokeAll(Map<String, Callable<?>> tasks) throws TimeoutException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Map<String, Future<?>> futures = new LinkedHashMap<>();
+        tasks.forEach((name, task) -> futures.put(name, executor.submit(task)));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, Future<?>> e : futures.entrySet()) {
+                long remaining = deadline - System.nanoTime();
+                result.put(e.getKey(), e.getValue().get(Math.max(remaining, 0), TimeUnit.NANOSECONDS));
+            }
+            return result;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            // 已完成的任务 cancel 是空操作；失败/超时时中断其余仍在跑的查询
+            futures.values().forEach(f -> f.cancel(true));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.studytracker.export;
+
+import com.studytracker.support.AuthUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+    private final HistoryExporter exporter;
+    private final AuthUtils auth;
+
+    public ExportController(HistoryExporter exporter, AuthUtils auth) {
+        this.exporter = exporter;
+        this.auth = auth;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> export(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat f;
+        try {
+            f = ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid format"));
+        }
+        // 写出在异步线程上进行，用户信息先在请求线程取好
+        Long uid = auth.currentUserId();
+        ZoneId zone = auth.currentZone();
+        StreamingResponseBody body = out -> exporter.export(uid, zone, f, out);
+        return ResponseEntity.ok()
+                .contentType(f.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"studytracker-export." + f.extension() + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,20 @@
+package com.studytracker.export;
+
+import org.springframework.http.MediaType;
+
+public enum ExportFormat {
+    NDJSON("ndjson", MediaType.parseMediaType("application/x-ndjson")),
+    CSV("csv", MediaType.parseMediaType("text/csv;charset=UTF-8"));
+
+    private final String extension;
+    private final MediaType mediaType;
+
+    ExportFormat(String extension, MediaType mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String extension() { return extension; }
+
+    public MediaType mediaType() { return mediaType; }
+}
@@ -0,0 +1,231 @@
+package com.studytracker.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.studytracker.study.StudySession;
+import com.studytracker.support.Csv;
+import com.studytracker.support.UserZoneDateTimeSerializer;
+import com.studytracker.words.WordLog;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 把用户的全部学习记录和背词记录流式写出。
+ * 结果集按 fetch size 分批从数据库读取，每行写出后立即 detach，内存占用与历史长度无关。
+ */
+@Service
+public class HistoryExporter {
+    private static final String CSV_HEADER = "type,id,subjectId,date,startTime,endTime,minutes,book,count,note\n";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate readOnlyTx;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public HistoryExporter(PlatformTransactionManager txManager, ObjectMapper objectMapper,
+                           @Value("${app.export.fetch-size}") int fetchSize) {
+        this.readOnlyTx = new TransactionTemplate(txManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    public void export(Long userId, ZoneId zone, ExportFormat format, OutputStream out) throws IOException {
+        try (RowWriter writer = format == ExportFormat.CSV ? new CsvRowWriter(out, zone) : new NdjsonRowWriter(out, zone)) {
+            readOnlyTx.executeWithoutResult(status -> {
+                try (Stream<StudySession> sessions = em.createQuery(
+                                "SELECT s FROM StudySession s WHERE s.userId = :userId ORDER BY s.startTime, s.id",
+                                StudySession.class)
+                        .setParameter("userId", userId)
+                        .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                        .setHint(HibernateHints.HINT_READ_ONLY, true)
+                        .getResultStream()) {
+                    Iterator<StudySession> it = sessions.iterator();
+                    while (it.hasNext()) {
+                        StudySession s = it.next();
+                        writer.session(s);
+                        em.detach(s);
+                    }
+                }
+                try (Stream<WordLog> logs = em.createQuery(
+                                "SELECT w FROM WordLog w WHERE w.userId = :userId ORDER BY w.date, w.id",
+                                WordLog.class)
+                        .setParameter("userId", userId)
+                        .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                        .setHint(HibernateHints.HINT_READ_ONLY, true)
+                        .getResultStream()) {
+                    Iterator<WordLog> it = logs.iterator();
+                    while (it.hasNext()) {
+                        WordLog wl = it.next();
+                        writer.words(wl);
+                        em.detach(wl);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private interface RowWriter extends AutoCloseable {
+        void session(StudySession s);
+
+        void words(WordLog wl);
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator gen;
+        private final ZoneId zone;
+        private final char[] timeBuf = new char[UserZoneDateTimeSerializer.OFFSET_LENGTH];
+
+        NdjsonRowWriter(OutputStream out, ZoneId zone) throws IOException {
+            this.gen = objectMapper.getFactory().createGenerator(out);
+            // 每行之间只用换行分隔，不要默认的空格
+            this.gen.setRootValueSeparator(null);
+            this.zone = zone;
+        }
+
+        @Override
+        public void session(StudySession s) {
+            try {
+                gen.writeStartObject();
+                gen.writeStringField("type", "session");
+                gen.writeNumberField("id", s.getId());
+                gen.writeNumberField("subjectId", s.getSubjectId());
+                writeTime("startTime", s.getStartTime());
+                writeTime("endTime", s.getEndTime());
+                gen.writeNumberField("minutes", Duration.between(s.getStartTime(), s.getEndTime()).toMinutes());
+                gen.writeStringField("note", s.getNote());
+                gen.writeEndObject();
+                gen.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void words(WordLog wl) {
+            try {
+                gen.writeStartObject();
+                gen.writeStringField("type", "words");
+                gen.writeNumberField("id", wl.getId());
+                if (wl.getSubjectId() != null) gen.writeNumberField("subjectId", wl.getSubjectId());
+                else gen.writeNullField("subjectId");
+                gen.writeStringField("date", wl.getDate().toString());
+                gen.writeStringField("book", wl.getBook());
+                gen.writeNumberField("count", wl.getCount());
+                gen.writeStringField("note", wl.getNote());
+                writeTime("startTime", wl.getStartTime());
+                writeTime("endTime", wl.getEndTime());
+                gen.writeEndObject();
+                gen.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeTime(String field, LocalDateTime utc) throws IOException {
+            gen.writeFieldName(field);
+            if (utc == null) {
+                gen.writeNull();
+                return;
+            }
+            gen.writeString(timeBuf, 0, UserZoneDateTimeSerializer.formatWithOffset(utc, zone, timeBuf));
+        }
+
+        @Override
+        public void close() throws IOException {
+            gen.close();
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer out;
+        private final ZoneId zone;
+        private final char[] timeBuf = new char[UserZoneDateTimeSerializer.OFFSET_LENGTH];
+
+        CsvRowWriter(OutputStream out, ZoneId zone) throws IOException {
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.zone = zone;
+            this.out.write(CSV_HEADER);
+        }
+
+        @Override
+        public void session(StudySession s) {
+            try {
+                out.write("session,");
+                out.write(Long.toString(s.getId()));
+                out.write(',');
+                out.write(Long.toString(s.getSubjectId()));
+                out.write(",,");
+                writeTime(s.getStartTime());
+                out.write(',');
+                writeTime(s.getEndTime());
+                out.write(',');
+                out.write(Long.toString(Duration.between(s.getStartTime(), s.getEndTime()).toMinutes()));
+                out.write(",,,");
+                out.write(Csv.escape(s.getNote()));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void words(WordLog wl) {
+            try {
+                out.write("words,");
+                out.write(Long.toString(wl.getId()));
+                out.write(',');
+                if (wl.getSubjectId() != null) out.write(Long.toString(wl.getSubjectId()));
+                out.write(',');
+                out.write(wl.getDate().toString());
+                out.write(',');
+                writeTime(wl.getStartTime());
+                out.write(',');
+                writeTime(wl.getEndTime());
+                out.write(",,");
+                out.write(Csv.escape(wl.getBook()));
+                out.write(',');
+                out.write(Integer.toString(wl.getCount()));
+                out.write(',');
+                out.write(Csv.escape(wl.getNote()));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeTime(LocalDateTime utc) throws IOException {
+            if (utc != null) out.write(timeBuf, 0, UserZoneDateTimeSerializer.formatWithOffset(utc, zone, timeBuf));
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -1,43 +1,64 @@
 package com.studytracker.goal;
 
 import com.studytracker.support.AuthUtils;
+import com.studytracker.support.DataVersions;
+import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+
 @RestController
 @RequestMapping("/api/goals")
 public class GoalController {
     private final GoalRepository repo;
     private final AuthUtils auth;
+    private final DataVersions versions;
+    private final StreakService streaks;
 
-    public GoalController(GoalRepository repo, AuthUtils auth) {
+    public GoalController(GoalRepository repo, AuthUtils auth, DataVersions versions, StreakService streaks) {
         this.repo = repo;
         this.auth = auth;
+        this.versions = versions;
+        this.streaks = streaks;
     }
 
     @GetMapping
-    public ResponseEntity<?> get() {
-        return ResponseEntity.ok(repo.findByUserId(auth.currentUserId()).orElseGet(() -> {
-            Goal g = new Goal();
-            g.setUserId(auth.currentUserId());
-            return repo.save(g);
-        }));
+    public ResponseEntity<?> get(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Long uid = auth.currentUserId();
+        return versions.conditional(ifNoneMatch, uid, "goal", () -> repo.findOrCreate(uid));
+    }
+
+    /** 连续达标天数与每个科目的连续天数，读预先维护好的状态，不扫历史 */
+    @GetMapping("/progress")
+    public ResponseEntity<?> progress(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Long uid = auth.currentUserId();
+        // 当前连续天数和“今天”有关，跨天后 ETag 随之变化
+        LocalDate today = LocalDate.now(auth.currentZone());
+        return versions.conditional(ifNoneMatch, uid, "progress:" + today, () -> streaks.progress(uid, today));
     }
 
     record PutReq(@NotNull Integer dailyMinutesTarget, @NotNull Integer dailyWordsTarget) {}
 
     @PutMapping
+    @Transactional
     public Goal put(@Valid @RequestBody PutReq req) {
-        Goal g = repo.findByUserId(auth.currentUserId()).orElseGet(() -> {
+        Long uid = auth.currentUserId();
+        Goal g = repo.findByUserId(uid).orElseGet(() -> {
             Goal ng = new Goal();
-            ng.setUserId(auth.currentUserId());
+            ng.setUserId(uid);
             return ng;
         });
         g.setDailyMinutesTarget(req.dailyMinutesTarget());
         g.setDailyWordsTarget(req.dailyWordsTarget());
-        return repo.save(g);
+        repo.save(g);
+        // 目标变了，历史上哪些天算达标也跟着变
+        streaks.recompute(uid);
+        versions.bump(uid);
+        return g;
     }
 }
 
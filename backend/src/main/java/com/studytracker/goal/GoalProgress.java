@@ -0,0 +1,14 @@
+package com.studytracker.goal;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * /api/goals/progress 的返回。currentStreak 已按请求当天折算：昨天和今天都没达标时为 0。
+ */
+public record GoalProgress(int currentStreak, int bestStreak, LocalDate lastMetDay, int daysMet,
+                           List<SubjectProgress> subjects) {
+
+    public record SubjectProgress(long subjectId, int currentStreak, int bestStreak, LocalDate lastMetDay,
+                                  int daysMet) {}
+}
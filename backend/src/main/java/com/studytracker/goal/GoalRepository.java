@@ -1,11 +1,29 @@
 package com.studytracker.goal;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 public interface GoalRepository extends JpaRepository<Goal, Long> {
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "goal-queries")
+    })
     Optional<Goal> findByUserId(Long userId);
+
+    /** 首次访问时按默认目标建一条；读写事务走主库，从库延迟时不会重复创建 */
+    @Transactional
+    default Goal findOrCreate(Long userId) {
+        return findByUserId(userId).orElseGet(() -> {
+            Goal g = new Goal();
+            g.setUserId(userId);
+            return save(g);
+        });
+    }
 }
 
 
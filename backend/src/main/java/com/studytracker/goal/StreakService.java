@@ -0,0 +1,158 @@
+package com.studytracker.goal;
+
+import com.studytracker.analytics.DailyUserStatRepository;
+import com.studytracker.subject.Subject;
+import com.studytracker.subject.SubjectRepository;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 连续达标的维护。每次写入只看写入的那一天在每日汇总里的数据，按时间顺序增量推进；
+ * 补录历史、目标变化、删除科目时从每日汇总全量重算（每天每科目一行，不扫明细表）。
+ * <p>
+ * 当天达标：分钟目标或单词目标任一达到（目标 ≤ 0 视为未设置；都未设置时有记录即达标）。
+ * 科目达标：dailyTarget > 0，按 studyType 比较分钟数或单词数。
+ * 调用方需在写入每日汇总的同一事务里调用。
+ */
+@Slf4j
+@Service
+public class StreakService {
+    private final UserStreakRepository userStreaks;
+    private final SubjectStreakRepository subjectStreaks;
+    private final DailyUserStatRepository stats;
+    private final GoalRepository goals;
+    private final SubjectRepository subjects;
+
+    public StreakService(UserStreakRepository userStreaks, SubjectStreakRepository subjectStreaks,
+                         DailyUserStatRepository stats, GoalRepository goals, SubjectRepository subjects) {
+        this.userStreaks = userStreaks;
+        this.subjectStreaks = subjectStreaks;
+        this.stats = stats;
+        this.goals = goals;
+        this.subjects = subjects;
+    }
+
+    /** day 这一天有新的学习/背词数据 */
+    @Transactional
+    public void recordDay(Long userId, LocalDate day) {
+        UserStreak streak = userStreaks.findForUpdate(userId).orElse(null);
+        if (streak == null) {
+            // 第一次写入（或功能上线前的老用户）：建行后全量算一次
+            recompute(userId);
+            return;
+        }
+        Goal goal = goals.findOrCreate(userId);
+        Map<Long, Subject> byId = subjectsById(userId);
+        int minutes = 0, words = 0;
+        boolean ordered = true;
+        for (Object[] row : stats.findHeatmapRows(userId, day, day)) {
+            int m = ((Number) row[2]).intValue();
+            int w = ((Number) row[3]).intValue();
+            minutes += m;
+            words += w;
+            Subject subject = byId.get((Long) row[1]);
+            if (subject != null && subjectMet(subject, m, w)) {
+                SubjectStreak ss = subjectStreaks.findById(subject.getId())
+                        .orElseGet(() -> new SubjectStreak(subject.getId(), userId));
+                ordered &= ss.getState().advance(day);
+                subjectStreaks.save(ss);
+            }
+        }
+        if (goalMet(goal, minutes, words)) {
+            ordered &= streak.getState().advance(day);
+        }
+        if (!ordered) {
+            log.debug("streak: backfilled day, recomputing uid={} day={}", userId, day);
+            recompute(userId);
+        }
+    }
+
+    /** 从每日汇总全量重算，返回最新状态 */
+    @Transactional
+    public UserStreak recompute(Long userId) {
+        UserStreak streak = userStreaks.findForUpdate(userId).orElse(null);
+        if (streak == null) {
+            userStreaks.insertIfAbsent(userId);
+            streak = userStreaks.findForUpdate(userId).orElseThrow();
+        }
+        Goal goal = goals.findOrCreate(userId);
+        Map<Long, Subject> byId = subjectsById(userId);
+
+        StreakState total = new StreakState();
+        Map<Long, StreakState> bySubject = new HashMap<>();
+        LocalDate day = null;
+        int minutes = 0, words = 0;
+        // 行按日期升序，同一天的各科目行相邻
+        for (Object[] row : stats.findDayRows(userId)) {
+            LocalDate rowDay = (LocalDate) row[0];
+            if (!rowDay.equals(day)) {
+                if (day != null && goalMet(goal, minutes, words)) total.advance(day);
+                day = rowDay;
+                minutes = 0;
+                words = 0;
+            }
+            int m = ((Number) row[2]).intValue();
+            int w = ((Number) row[3]).intValue();
+            minutes += m;
+            words += w;
+            Subject subject = byId.get((Long) row[1]);
+            if (subject != null && subjectMet(subject, m, w)) {
+                bySubject.computeIfAbsent(subject.getId(), id -> new StreakState()).advance(rowDay);
+            }
+        }
+        if (day != null && goalMet(goal, minutes, words)) total.advance(day);
+
+        streak.setState(total);
+        // 原地更新已有行，删掉不再达标（目标取消、科目删除）的行
+        for (SubjectStreak ss : subjectStreaks.findByUserId(userId)) {
+            StreakState state = bySubject.remove(ss.getSubjectId());
+            if (state != null) {
+                ss.setState(state);
+            } else {
+                subjectStreaks.delete(ss);
+            }
+        }
+        bySubject.forEach((subjectId, state) -> {
+            SubjectStreak ss = new SubjectStreak(subjectId, userId);
+            ss.setState(state);
+            subjectStreaks.save(ss);
+        });
+        return streak;
+    }
+
+    @Transactional
+    public GoalProgress progress(Long userId, LocalDate today) {
+        UserStreak streak = userStreaks.findById(userId).orElseGet(() -> recompute(userId));
+        List<GoalProgress.SubjectProgress> bySubject = subjectStreaks.findByUserId(userId).stream()
+                .map(ss -> new GoalProgress.SubjectProgress(ss.getSubjectId(), ss.getState().currentAsOf(today),
+                        ss.getState().getBestStreak(), ss.getState().getLastMetDay(), ss.getState().getDaysMet()))
+                .toList();
+        StreakState s = streak.getState();
+        return new GoalProgress(s.currentAsOf(today), s.getBestStreak(), s.getLastMetDay(), s.getDaysMet(), bySubject);
+    }
+
+    private Map<Long, Subject> subjectsById(Long userId) {
+        return subjects.findByUserId(userId).stream().collect(Collectors.toMap(Subject::getId, Function.identity()));
+    }
+
+    static boolean goalMet(Goal goal, int minutes, int words) {
+        int minutesTarget = goal.getDailyMinutesTarget() != null ? goal.getDailyMinutesTarget() : 0;
+        int wordsTarget = goal.getDailyWordsTarget() != null ? goal.getDailyWordsTarget() : 0;
+        if (minutesTarget <= 0 && wordsTarget <= 0) return minutes > 0 || words > 0;
+        return (minutesTarget > 0 && minutes >= minutesTarget) || (wordsTarget > 0 && words >= wordsTarget);
+    }
+
+    static boolean subjectMet(Subject subject, int minutes, int words) {
+        int target = subject.getDailyTarget() != null ? subject.getDailyTarget() : 0;
+        if (target <= 0) return false;
+        return "WORDS".equals(subject.getStudyType()) ? words >= target : minutes >= target;
+    }
+}
@@ -0,0 +1,44 @@
+package com.studytracker.goal;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * 连续达标状态。达标日只会按时间顺序追加时可以增量推进；
+ * 出现早于 lastMetDay 的新达标日（补录历史）时需要全量重算。
+ */
+@Embeddable
+@Getter
+@NoArgsConstructor
+public class StreakState {
+    @Column(name = "current_streak", nullable = false)
+    private int currentStreak;
+    @Column(name = "best_streak", nullable = false)
+    private int bestStreak;
+    @Column(name = "last_met_day")
+    private LocalDate lastMetDay;
+    @Column(name = "days_met", nullable = false)
+    private int daysMet;
+
+    /** day 当天达标；返回 false 表示 day 早于 lastMetDay，无法增量处理 */
+    boolean advance(LocalDate day) {
+        if (lastMetDay != null) {
+            if (day.equals(lastMetDay)) return true;
+            if (day.isBefore(lastMetDay)) return false;
+        }
+        currentStreak = lastMetDay != null && day.equals(lastMetDay.plusDays(1)) ? currentStreak + 1 : 1;
+        bestStreak = Math.max(bestStreak, currentStreak);
+        lastMetDay = day;
+        daysMet++;
+        return true;
+    }
+
+    /** 截至 today 仍在延续的连续天数：今天还没达标不算中断，昨天也没达标才归零 */
+    int currentAsOf(LocalDate today) {
+        return lastMetDay != null && !lastMetDay.isBefore(today.minusDays(1)) ? currentStreak : 0;
+    }
+}
@@ -0,0 +1,26 @@
+package com.studytracker.goal;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "subject_streaks")
+@Getter
+@Setter
+@NoArgsConstructor
+public class SubjectStreak {
+    @Id
+    @Column(name = "subject_id")
+    private Long subjectId;
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    @Embedded
+    private StreakState state = new StreakState();
+
+    SubjectStreak(Long subjectId, Long userId) {
+        this.subjectId = subjectId;
+        this.userId = userId;
+    }
+}
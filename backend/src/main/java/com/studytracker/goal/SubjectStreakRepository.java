@@ -0,0 +1,9 @@
+package com.studytracker.goal;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface SubjectStreakRepository extends JpaRepository<SubjectStreak, Long> {
+    List<SubjectStreak> findByUserId(Long userId);
+}
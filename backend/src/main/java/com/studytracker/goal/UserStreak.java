@@ -0,0 +1,27 @@
+package com.studytracker.goal;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "user_streaks")
+@Getter
+@Setter
+@NoArgsConstructor
+public class UserStreak {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    @Embedded
+    private StreakState state = new StreakState();
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() { updatedAt = Instant.now(); }
+}
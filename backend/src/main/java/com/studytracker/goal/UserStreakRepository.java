@@ -0,0 +1,26 @@
+package com.studytracker.goal;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface UserStreakRepository extends JpaRepository<UserStreak, Long> {
+    /** 同一用户的并发写入在这一行上串行 */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserStreak s WHERE s.userId = :userId")
+    Optional<UserStreak> findForUpdate(@Param("userId") Long userId);
+
+    /** 首次写入时建行；并发的两次首次写入不会因主键冲突让其中一个写请求失败 */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_streaks"))
+    @Query(value = "INSERT IGNORE INTO user_streaks (user_id) VALUES (:userId)", nativeQuery = true)
+    void insertIfAbsent(@Param("userId") Long userId);
+}
@@ -0,0 +1,14 @@
+package com.studytracker.security;
+
+import java.security.Principal;
+import java.time.ZoneId;
+
+/**
+ * 从 access token 的 claim 还原出的登录用户，过滤器不再为每个请求查 users 表。
+ */
+public record AuthenticatedUser(Long id, String email, ZoneId zone) implements Principal {
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -0,0 +1,86 @@
+package com.studytracker.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 把 BCrypt 放到固定大小的线程池里执行，最多 threads 个并发哈希、queueSize 个排队。
+ * 登录高峰时超出的请求立即以 429 拒绝，而不是占满 CPU 和 Tomcat 线程拖垮其他接口；
+ * 被阻塞等待的请求线程最多 threads + queueSize 个。
+ */
+@Slf4j
+public class BulkheadPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final int retryAfterSeconds;
+
+    public BulkheadPasswordEncoder(PasswordEncoder delegate, int threads, int queueSize, int retryAfterSeconds,
+                                   MeterRegistry registry) {
+        this.delegate = delegate;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), new HashingThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(registry, executor, "password-hashing");
+        log.info("security: bcrypt bulkhead threads={} queueSize={}", threads, queueSize);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /** Spring 关闭上下文时按推断的 destroy 方法调用 */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T run(Callable<T> task) {
+        try {
+            return executor.submit(task).get();
+        } catch (RejectedExecutionException e) {
+            log.warn("security: bcrypt bulkhead saturated active={} queued={}",
+                    executor.getActiveCount(), executor.getQueue().size());
+            throw new PasswordHashingRejectedException(retryAfterSeconds);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "bcrypt-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
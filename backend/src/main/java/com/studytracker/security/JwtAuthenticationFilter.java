@@ -1,10 +1,15 @@
 package com.studytracker.security;
 
+import com.studytracker.support.UserZones;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -14,16 +19,27 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 
 @Component
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
+    private static final List<GrantedAuthority> USER_AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocations revocations;
+    private final Duration accessTokenTtl;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService,
+                                   TokenRevocations revocations,
+                                   @Value("${app.jwt.access-token-ttl-minutes:60}") long accessTokenTtlMinutes) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.revocations = revocations;
+        this.accessTokenTtl = Duration.ofMinutes(accessTokenTtlMinutes);
     }
 
     @Override
@@ -33,11 +49,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             try {
-                String subject = jwtService.extractSubject(token);
-                if (subject != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(subject);
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities());
+                Claims claims = jwtService.parseClaims(token);
+                String subject = claims.getSubject();
+                Number uid = claims.get("uid", Number.class);
+                if (JwtService.REFRESH_TYPE.equals(claims.get(JwtService.TYPE_CLAIM, String.class))) {
+                    log.warn("jwt: refresh token used as access token path={}", request.getRequestURI());
+                } else if (uid == null && !withinAccessTtl(claims)) {
+                    // 旧格式 token 无法区分 access/refresh，超过 access 有效期的一律不认
+                    log.debug("jwt: legacy token past access ttl path={}", request.getRequestURI());
+                } else if (uid != null && revocations.isUserRevoked(uid.longValue(), JwtService.issuedAtMillis(claims))) {
+                    log.debug("jwt: token revoked by logout-all uid={}", uid);
+                } else if (subject != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    UsernamePasswordAuthenticationToken authToken;
+                    if (uid != null) {
+                        // access token 已带 uid，直接构造 principal，不查库
+                        authToken = new UsernamePasswordAuthenticationToken(
+                                new AuthenticatedUser(uid.longValue(), subject, UserZones.of(claims.get("tz", String.class))),
+                                null, USER_AUTHORITIES);
+                    } else {
+                        // 没有 uid 的旧 token 回退到按邮箱加载用户
+                        UserDetails userDetails = userDetailsService.loadUserByUsername(subject);
+                        authToken = new UsernamePasswordAuthenticationToken(
+                                userDetails, null, userDetails.getAuthorities());
+                    }
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                     log.debug("jwt: authenticated subject={}", subject);
@@ -48,4 +82,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    private boolean withinAccessTtl(Claims claims) {
+        return claims.getIssuedAt() != null
+                && claims.getIssuedAt().toInstant().plus(accessTokenTtl).isAfter(Instant.now());
+    }
 }
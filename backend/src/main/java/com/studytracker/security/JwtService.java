@@ -1,34 +1,78 @@
 package com.studytracker.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Base64;
 import java.util.Date;
 import java.util.Map;
+import java.util.UUID;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
 @Slf4j
 public class JwtService {
+    /** token 类型 claim，refresh token 为 "refresh"，不能用于访问 API */
+    public static final String TYPE_CLAIM = "typ";
+    public static final String REFRESH_TYPE = "refresh";
+    /** refresh token 所属轮换链 */
+    public static final String FAMILY_CLAIM = "fam";
+    /** 毫秒精度的签发时间；iat 只精确到秒，不足以和“全部退出”的时间比较先后 */
+    public static final String ISSUED_AT_MS_CLAIM = "iatms";
+
     private final SecretKey signingKey;
     private final long accessTokenTtlMinutes;
     private final long refreshTokenTtlDays;
+    private final JwtParser parser;
+    // 已验签的 token，按 SHA-256 摘要索引，过期时间不超过 token 自身的 exp
+    private final Cache<String, Claims> verifiedTokens;
+    private final Timer signAccessTimer;
+    private final Timer signRefreshTimer;
+    private final Timer verifyTimer;
 
     public JwtService(
             @Value("${app.jwt.secret}") String secret,
             @Value("${app.jwt.access-token-ttl-minutes:60}") long accessTokenTtlMinutes,
-            @Value("${app.jwt.refresh-token-ttl-days:7}") long refreshTokenTtlDays
+            @Value("${app.jwt.refresh-token-ttl-days:7}") long refreshTokenTtlDays,
+            @Value("${app.jwt.verified-token-cache-size:10000}") long verifiedTokenCacheSize,
+            MeterRegistry meterRegistry
     ) {
         this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(toBase64(secret)));
         this.accessTokenTtlMinutes = accessTokenTtlMinutes;
         this.refreshTokenTtlDays = refreshTokenTtlDays;
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedTokenCacheSize)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        // 缓存命中不计入 jwt.verify，命中率看 cache.gets{cache=jwt.verified-tokens}
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified-tokens");
+        this.signAccessTimer = Timer.builder("jwt.sign").tag("type", "access")
+                .description("签发 JWT 耗时").register(meterRegistry);
+        this.signRefreshTimer = Timer.builder("jwt.sign").tag("type", "refresh")
+                .description("签发 JWT 耗时").register(meterRegistry);
+        this.verifyTimer = Timer.builder("jwt.verify")
+                .description("JWT 验签耗时（缓存未命中）").register(meterRegistry);
     }
 
     private static String toBase64(String secret) {
@@ -44,32 +88,83 @@ public class JwtService {
     public String generateAccessToken(String subject, Map<String, Object> claims) {
         Instant now = Instant.now();
         log.debug("jwt: generate access token for subject={}", subject);
-        return Jwts.builder()
+        return signAccessTimer.record(() -> Jwts.builder()
                 .subject(subject)
                 .claims(claims)
                 .issuedAt(Date.from(now))
+                .claim(ISSUED_AT_MS_CLAIM, now.toEpochMilli())
                 .expiration(Date.from(now.plus(accessTokenTtlMinutes, ChronoUnit.MINUTES)))
                 .signWith(signingKey, SignatureAlgorithm.HS256)
-                .compact();
+                .compact());
     }
 
-    public String generateRefreshToken(String subject) {
+    /** 每个 refresh token 有唯一 jti，同一次登录后轮换出的 token 共用 family */
+    public String generateRefreshToken(String subject, String family, Map<String, Object> claims) {
         Instant now = Instant.now();
-        log.debug("jwt: generate refresh token for subject={}", subject);
-        return Jwts.builder()
+        log.debug("jwt: generate refresh token for subject={} family={}", subject, family);
+        return signRefreshTimer.record(() -> Jwts.builder()
                 .subject(subject)
+                .id(UUID.randomUUID().toString())
+                .claims(claims)
+                .claim(TYPE_CLAIM, REFRESH_TYPE)
+                .claim(FAMILY_CLAIM, family)
                 .issuedAt(Date.from(now))
+                .claim(ISSUED_AT_MS_CLAIM, now.toEpochMilli())
                 .expiration(Date.from(now.plus(refreshTokenTtlDays, ChronoUnit.DAYS)))
                 .signWith(signingKey, SignatureAlgorithm.HS256)
-                .compact();
+                .compact());
+    }
+
+    public Claims parseClaims(String token) {
+        String key = digest(token);
+        Claims cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        // 验签失败（过期、签名不符）也计时，异常照常抛出
+        Claims claims = verifyTimer.record(() -> parser.parseSignedClaims(token).getPayload());
+        verifiedTokens.put(key, claims);
+        return claims;
     }
 
     public String extractSubject(String token) {
-        String subject = Jwts.parser().verifyWith(signingKey).build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+        String subject = parseClaims(token).getSubject();
         log.trace("jwt: extracted subject={}", subject);
         return subject;
     }
+
+    /** 签发时间（epoch 毫秒）；之前签发的 token 没有毫秒 claim，按 iat 秒数计 */
+    public static long issuedAtMillis(Claims claims) {
+        Number millis = claims.get(ISSUED_AT_MS_CLAIM, Number.class);
+        return millis != null ? millis.longValue() : claims.getIssuedAt().getTime();
+    }
+
+    /** token 的 SHA-256（base64），用作缓存键和一次性标记 */
+    public static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class UntilTokenExpiry implements Expiry<String, Claims> {
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date exp = claims.getExpiration();
+            if (exp == null) return 0;
+            return Math.max(0, Duration.between(Instant.now(), exp.toInstant()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
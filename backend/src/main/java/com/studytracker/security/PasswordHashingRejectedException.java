@@ -0,0 +1,17 @@
+package com.studytracker.security;
+
+/**
+ * BCrypt 线程池和等待队列都已占满，请求直接拒绝，由全局异常处理返回 429。
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+    private final int retryAfterSeconds;
+
+    public PasswordHashingRejectedException(int retryAfterSeconds) {
+        super("Too many concurrent sign-ins, retry later");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,202 @@
+package com.studytracker.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * token 的吊销状态。
+ * <ul>
+ *   <li>access token（每个请求）只查内存：启动时从 revoked_tokens 重建，并每 revocation-sync-ms
+ *   拉取其他实例新写入的记录，其他实例上的“全部退出”在这个间隔内生效。</li>
+ *   <li>refresh token 以数据库为准：轮换时在 token_rotations 上按 jti 主键原子占用，
+ *   撞主键即已被（任一实例）轮换过；吊销同步写库，刷新时内存未命中再查库确认。</li>
+ * </ul>
+ * 记录只需保留 refresh-token-ttl-days，之后对应的 token 已自然过期，内存和表里都会被清理。
+ */
+@Component
+@Slf4j
+public class TokenRevocations {
+    /** JTI 只出现在旧版本写入的记录里，现在的轮换记录在 token_rotations */
+    enum Kind { JTI, FAMILY, USER }
+
+    private record Revocation(Kind kind, String key, long revokedAt) {}
+
+    private static final String INSERT_SQL = "INSERT INTO revoked_tokens (kind, token_key, revoked_at) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbc;
+    private final long retentionMillis;
+    // 值为吊销时间（epoch 毫秒）
+    private final ConcurrentMap<String, Long> rotatedJtis = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> revokedFamilies = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Long> userNotBefore = new ConcurrentHashMap<>();
+    private final Queue<Revocation> pending = new ConcurrentLinkedQueue<>();
+    private volatile long lastSyncedId;
+
+    public TokenRevocations(JdbcTemplate jdbc, @Value("${app.jwt.refresh-token-ttl-days:7}") long refreshTokenTtlDays) {
+        this.jdbc = jdbc;
+        this.retentionMillis = refreshTokenTtlDays * 86_400_000;
+    }
+
+    @PostConstruct
+    void load() {
+        LocalDateTime since = toDateTime(now() - retentionMillis);
+        jdbc.query("SELECT id, kind, token_key, revoked_at FROM revoked_tokens WHERE revoked_at > ? ORDER BY id",
+                rs -> {
+                    apply(Kind.valueOf(rs.getString(2)), rs.getString(3), toMillis(rs.getObject(4, LocalDateTime.class)));
+                    lastSyncedId = rs.getLong(1);
+                }, since);
+        log.info("jwt: loaded revocations jtis={} families={} users={}",
+                rotatedJtis.size(), revokedFamilies.size(), userNotBefore.size());
+    }
+
+    /**
+     * 标记 jti 已被轮换。首次轮换返回 null，已轮换过则返回当时的时间（epoch 毫秒），
+     * 调用方据此判断是并发刷新还是旧 token 被重放。
+     * 内存命中直接返回；否则以插入 token_rotations 为准，多个实例同时轮换同一个 jti 只有一个成功。
+     */
+    public Long rotate(String jti) {
+        Long previous = rotatedJtis.get(jti);
+        if (previous != null) return previous;
+        long now = now();
+        try {
+            jdbc.update("INSERT INTO token_rotations (jti, rotated_at) VALUES (?, ?)", jti, toDateTime(now));
+        } catch (DuplicateKeyException e) {
+            long rotatedAt = toMillis(jdbc.queryForObject(
+                    "SELECT rotated_at FROM token_rotations WHERE jti = ?", LocalDateTime.class, jti));
+            rotatedJtis.putIfAbsent(jti, rotatedAt);
+            return rotatedAt;
+        }
+        rotatedJtis.put(jti, now);
+        return null;
+    }
+
+    public void revokeFamily(String family) {
+        long now = now();
+        if (revokedFamilies.putIfAbsent(family, now) == null) {
+            write(new Revocation(Kind.FAMILY, family, now));
+        }
+    }
+
+    /** 让该用户此前签发的所有 token 失效（包括 access token） */
+    public void revokeUser(Long userId) {
+        long now = now();
+        userNotBefore.merge(userId, now, Math::max);
+        write(new Revocation(Kind.USER, userId.toString(), now));
+    }
+
+    /**
+     * 刷新时的吊销检查：内存命中即失效，否则查库，其他实例刚写入、尚未同步过来的吊销也能看到。
+     * family 为 null（旧格式 token）时只看用户。
+     */
+    public boolean isRefreshRevoked(String family, Long userId, long issuedAt) {
+        if (isFamilyRevoked(family) || isUserRevoked(userId, issuedAt)) return true;
+        Integer hits = jdbc.queryForObject("""
+                SELECT COUNT(*) FROM revoked_tokens
+                WHERE (kind = 'FAMILY' AND token_key = ?) OR (kind = 'USER' AND token_key = ? AND revoked_at >= ?)
+                """, Integer.class, family, userId.toString(), toDateTime(issuedAt));
+        return hits != null && hits > 0;
+    }
+
+    public boolean isFamilyRevoked(String family) {
+        return family != null && revokedFamilies.containsKey(family);
+    }
+
+    /**
+     * issuedAt 为 token 的签发时间（epoch 毫秒，见 {@link JwtService#issuedAtMillis}），
+     * 不晚于用户最近一次“全部退出”即视为失效；按秒比较会让同一秒内重新登录拿到的 token 一出生就失效
+     */
+    public boolean isUserRevoked(Long userId, long issuedAt) {
+        Long notBefore = userNotBefore.get(userId);
+        return notBefore != null && issuedAt <= notBefore;
+    }
+
+    /** 吊销同步写库，刷新请求落到其他实例时立即可见；写库失败留给定时任务重试 */
+    private void write(Revocation r) {
+        try {
+            jdbc.update(INSERT_SQL, r.kind().name(), r.key(), toDateTime(r.revokedAt()));
+        } catch (RuntimeException e) {
+            pending.add(r);
+            log.warn("jwt: write revocation failed kind={} msg={}", r.kind(), e.getMessage());
+        }
+    }
+
+    /** 写库失败的吊销批量重试 */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation-flush-ms:1000}")
+    void flush() {
+        List<Revocation> batch = new ArrayList<>();
+        for (Revocation r; (r = pending.poll()) != null; ) batch.add(r);
+        if (batch.isEmpty()) return;
+        try {
+            jdbc.batchUpdate(INSERT_SQL, batch, 500, (ps, r) -> {
+                ps.setString(1, r.kind().name());
+                ps.setString(2, r.key());
+                ps.setObject(3, toDateTime(r.revokedAt()));
+            });
+        } catch (RuntimeException e) {
+            // 下次重试；内存状态已生效，只影响重启后的恢复
+            pending.addAll(batch);
+            log.warn("jwt: flush revocations failed size={} msg={}", batch.size(), e.getMessage());
+        }
+    }
+
+    /** 拉取其他实例写入的吊销；按主键增量读取，间隔可以很短 */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation-sync-ms:2000}")
+    void sync() {
+        jdbc.query("SELECT id, kind, token_key, revoked_at FROM revoked_tokens WHERE id > ? ORDER BY id",
+                rs -> {
+                    apply(Kind.valueOf(rs.getString(2)), rs.getString(3), toMillis(rs.getObject(4, LocalDateTime.class)));
+                    lastSyncedId = rs.getLong(1);
+                }, lastSyncedId);
+    }
+
+    /** 清理已超出保留期的记录 */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation-prune-ms:600000}")
+    void prune() {
+        long cutoff = now() - retentionMillis;
+        prune(rotatedJtis, cutoff);
+        prune(revokedFamilies, cutoff);
+        prune(userNotBefore, cutoff);
+        jdbc.update("DELETE FROM revoked_tokens WHERE revoked_at < ? LIMIT 10000", toDateTime(cutoff));
+        jdbc.update("DELETE FROM token_rotations WHERE rotated_at < ? LIMIT 10000", toDateTime(cutoff));
+    }
+
+    private void apply(Kind kind, String key, long revokedAt) {
+        switch (kind) {
+            case JTI -> rotatedJtis.putIfAbsent(key, revokedAt);
+            case FAMILY -> revokedFamilies.putIfAbsent(key, revokedAt);
+            case USER -> userNotBefore.merge(Long.valueOf(key), revokedAt, Math::max);
+        }
+    }
+
+    private static <K> void prune(Map<K, Long> map, long cutoff) {
+        map.values().removeIf(revokedAt -> revokedAt < cutoff);
+    }
+
+    private static long now() {
+        return System.currentTimeMillis();
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
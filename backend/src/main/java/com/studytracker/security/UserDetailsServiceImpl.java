@@ -22,7 +22,9 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(username)
+        // 从库查不到时再查主库：刚注册的用户可能还没同步过去
+        User user = userRepository.findByEmailForRead(username)
+                .or(() -> userRepository.findByEmail(username))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
         log.debug("security: loaded user email={} uid={}", user.getEmail(), user.getId());
         return new org.springframework.security.core.userdetails.User(
@@ -0,0 +1,29 @@
+package com.studytracker.stream;
+
+import com.studytracker.support.AuthUtils;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 替代轮询 /api/study-sessions/days/{date}：连上后先收到一次当天累计，之后每次写入都会推送，
+ * 事件名 totals，数据为 {@link TodayTotals}。鉴权仍走 Authorization 头，浏览器端需用 fetch 读流。
+ */
+@RestController
+@RequestMapping("/api/stream")
+public class StreamController {
+    private final TodayStream todayStream;
+    private final AuthUtils auth;
+
+    public StreamController(TodayStream todayStream, AuthUtils auth) {
+        this.todayStream = todayStream;
+        this.auth = auth;
+    }
+
+    @GetMapping(value = "/today", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter today() {
+        return todayStream.subscribe(auth.currentUserId(), auth.currentZone());
+    }
+}
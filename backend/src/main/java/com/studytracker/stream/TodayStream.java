@@ -0,0 +1,320 @@
+package com.studytracker.stream;
+
+import com.studytracker.analytics.DailyStatsService;
+import com.studytracker.study.StudySession;
+import com.studytracker.study.StudySessionRepository;
+import com.studytracker.words.WordLog;
+import com.studytracker.words.WordLogRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 当天累计的实时推送。只为有连接的用户在内存里保存当天累计：首次订阅时从库里加载，
+ * 之后学习/背词记录提交时增量累加，并推给该用户的所有连接。
+ * <p>
+ * 增量按记录 id 去重，加载和提交并发时不会重复计数；批量写入直接重新加载。
+ * 每个连接只缓冲最新一份快照，慢连接只会少收中间状态，不会积压；发送在虚拟线程上进行，
+ * 不阻塞写请求。
+ * <p>
+ * 写入可能发生在其他实例上：每 poll-ms 按主键批量读一次有连接用户的 users.data_version，
+ * 比加载时记下的版本新就重新加载并推送，其他实例的写入最多延迟一个间隔送达。
+ */
+@Slf4j
+@Component
+public class TodayStream {
+    private static final int POLL_BATCH = 500;
+
+    private final StudySessionRepository sessionRepo;
+    private final WordLogRepository wordLogRepo;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate loadTx;
+    private final long timeoutMs;
+    private final int maxConnectionsPerUser;
+    private final ConcurrentMap<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+
+    public TodayStream(StudySessionRepository sessionRepo, WordLogRepository wordLogRepo, JdbcTemplate jdbc,
+                       PlatformTransactionManager txManager, MeterRegistry registry,
+                       @Value("${app.stream.timeout-ms:1800000}") long timeoutMs,
+                       @Value("${app.stream.max-connections-per-user:10}") int maxConnectionsPerUser) {
+        this.sessionRepo = sessionRepo;
+        this.wordLogRepo = wordLogRepo;
+        this.jdbc = jdbc;
+        // 加载常在别的事务提交后回调里发生，需要新事务；读写事务走主库，不受从库延迟影响
+        this.loadTx = new TransactionTemplate(txManager);
+        this.loadTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.timeoutMs = timeoutMs;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+        registry.gauge("stream.today.connections", connectionCount);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sender.shutdownNow();
+    }
+
+    public SseEmitter subscribe(Long userId, ZoneId zone) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Connection connection = new Connection(userId, emitter);
+        List<Connection> evicted = new ArrayList<>();
+        Channel channel = channels.compute(userId, (id, existing) -> {
+            Channel c = existing != null ? existing : new Channel(id, zone);
+            c.connections.add(connection);
+            // 超过上限时踢掉最早的连接（通常是早已关掉却没断开的标签页）
+            while (c.connections.size() > maxConnectionsPerUser) {
+                evicted.add(c.connections.remove(0));
+                connectionCount.decrementAndGet();
+            }
+            return c;
+        });
+        connectionCount.incrementAndGet();
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(() -> remove(connection));
+        emitter.onError(e -> remove(connection));
+        evicted.forEach(c -> c.emitter.complete());
+        connection.offer(channel.snapshot());
+        return emitter;
+    }
+
+    /** 单条学习记录写入后调用，提交后才累加 */
+    public void recordSession(StudySession s) {
+        afterCommit(() -> {
+            Channel channel = channels.get(s.getUserId());
+            if (channel != null && channel.addSession(s)) channel.publish();
+        });
+    }
+
+    /** 单条背词记录写入后调用，提交后才累加 */
+    public void recordWords(WordLog wl) {
+        afterCommit(() -> {
+            Channel channel = channels.get(wl.getUserId());
+            if (channel != null && channel.addWords(wl)) channel.publish();
+        });
+    }
+
+    /** 批量/导入写入后调用，提交后重新加载当天累计 */
+    public void reload(Long userId) {
+        afterCommit(() -> {
+            Channel channel = channels.get(userId);
+            if (channel != null) {
+                channel.load();
+                channel.publish();
+            }
+        });
+    }
+
+    /** 心跳让代理不断开空闲连接，顺带处理跨天 */
+    @Scheduled(fixedRateString = "${app.stream.heartbeat-ms:15000}")
+    void heartbeat() {
+        for (Channel channel : channels.values()) {
+            if (channel.rolledOver()) {
+                sender.execute(() -> {
+                    channel.load();
+                    channel.publish();
+                });
+            }
+            channel.connections.forEach(Connection::ping);
+        }
+    }
+
+    /** 其他实例上的写入：版本号变了的用户重新加载 */
+    @Scheduled(fixedDelayString = "${app.stream.poll-ms:2000}")
+    void pollVersions() {
+        List<Long> ids = new ArrayList<>(channels.keySet());
+        for (int from = 0; from < ids.size(); from += POLL_BATCH) {
+            List<Long> batch = ids.subList(from, Math.min(from + POLL_BATCH, ids.size()));
+            String in = String.join(",", Collections.nCopies(batch.size(), "?"));
+            jdbc.query("SELECT id, data_version FROM users WHERE id IN (" + in + ")", rs -> {
+                Channel channel = channels.get(rs.getLong(1));
+                if (channel != null && channel.outdatedBy(rs.getLong(2))) {
+                    sender.execute(() -> {
+                        channel.load();
+                        channel.publish();
+                    });
+                }
+            }, batch.toArray());
+        }
+    }
+
+    private void remove(Connection connection) {
+        channels.computeIfPresent(connection.userId, (id, c) -> {
+            if (c.connections.remove(connection)) connectionCount.decrementAndGet();
+            return c.connections.isEmpty() ? null : c;
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /** 一个用户的当天累计及其所有连接，累计字段由 this 保护 */
+    private final class Channel {
+        final Long userId;
+        final ZoneId zone;
+        final List<Connection> connections = new CopyOnWriteArrayList<>();
+        private LocalDate date;
+        /** 加载时 users.data_version 的值 */
+        private long loadedVersion;
+        private final Set<Long> sessionIds = new HashSet<>();
+        private final Set<Long> wordLogIds = new HashSet<>();
+        private int totalMinutes;
+        private int totalWords;
+        private final Map<Long, Integer> minutesBySubject = new HashMap<>();
+        private final Map<Long, Integer> wordsBySubject = new HashMap<>();
+
+        Channel(Long userId, ZoneId zone) {
+            this.userId = userId;
+            this.zone = zone;
+        }
+
+        /** 已加载过且库里版本更新；同时记下该版本，重复轮询不会重复加载 */
+        synchronized boolean outdatedBy(long version) {
+            if (date == null || version <= loadedVersion) return false;
+            loadedVersion = version;
+            return true;
+        }
+
+        synchronized boolean rolledOver() {
+            return date != null && !date.equals(LocalDate.now(zone));
+        }
+
+        /** 从库里重新汇总今天的记录 */
+        synchronized void load() {
+            date = LocalDate.now(zone);
+            sessionIds.clear();
+            wordLogIds.clear();
+            totalMinutes = 0;
+            totalWords = 0;
+            minutesBySubject.clear();
+            wordsBySubject.clear();
+            loadTx.executeWithoutResult(status -> {
+                // 先读版本号：之后的写入都会让轮询发现版本变化
+                Long version = jdbc.queryForObject("SELECT data_version FROM users WHERE id = ?", Long.class, userId);
+                loadedVersion = version != null ? version : 0;
+                sessionRepo.findDay(userId, date, zone).sessions().forEach(this::addSession);
+                wordLogRepo.findByUserIdAndDateBetweenOrderByDateAsc(userId, date, date).forEach(this::addWords);
+            });
+        }
+
+        synchronized boolean addSession(StudySession s) {
+            if (date == null || rolledOver()) load();
+            LocalDate day = s.getStartTime().atOffset(ZoneOffset.UTC).atZoneSameInstant(zone).toLocalDate();
+            if (!day.equals(date) || !sessionIds.add(s.getId())) return false;
+            int minutes = (int) Duration.between(s.getStartTime(), s.getEndTime()).toMinutes();
+            totalMinutes += minutes;
+            minutesBySubject.merge(DailyStatsService.subjectKey(s.getSubjectId()), minutes, Integer::sum);
+            return true;
+        }
+
+        synchronized boolean addWords(WordLog wl) {
+            if (date == null || rolledOver()) load();
+            if (!wl.getDate().equals(date) || !wordLogIds.add(wl.getId())) return false;
+            totalWords += wl.getCount();
+            wordsBySubject.merge(DailyStatsService.subjectKey(wl.getSubjectId()), wl.getCount(), Integer::sum);
+            return true;
+        }
+
+        synchronized TodayTotals snapshot() {
+            if (date == null || rolledOver()) load();
+            return new TodayTotals(date, totalMinutes, totalWords, Map.copyOf(minutesBySubject), Map.copyOf(wordsBySubject));
+        }
+
+        void publish() {
+            TodayTotals totals = snapshot();
+            connections.forEach(c -> c.offer(totals));
+        }
+    }
+
+    /** 单个 SSE 连接：只保留最新一份待发快照，同一时刻最多一个发送任务 */
+    private final class Connection {
+        final Long userId;
+        final SseEmitter emitter;
+        private final AtomicReference<TodayTotals> pending = new AtomicReference<>();
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Connection(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(TodayTotals totals) {
+            pending.set(totals);
+            scheduleDrain();
+        }
+
+        void ping() {
+            heartbeatDue.set(true);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                do {
+                    TodayTotals totals;
+                    while ((totals = pending.getAndSet(null)) != null) {
+                        emitter.send(SseEmitter.event().name("totals").data(totals));
+                    }
+                    if (heartbeatDue.getAndSet(false)) {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    }
+                    draining.set(false);
+                    // 释放标记后又有新数据进来，而且没有别的线程接手，就继续发
+                } while ((pending.get() != null || heartbeatDue.get()) && draining.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开；保持 draining 为 true，不再调度发送
+                log.debug("stream: send failed uid={} err={}", userId, e.toString());
+                remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
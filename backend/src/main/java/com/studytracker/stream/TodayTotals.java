@@ -0,0 +1,12 @@
+package com.studytracker.stream;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * 用户时区下当天的累计，/api/stream/today 每次推送的完整快照。
+ * totalMinutes 与 {@link com.studytracker.study.StudyDay#totalMinutes()} 口径一致，只算学习记录。
+ */
+public record TodayTotals(LocalDate date, int totalMinutes, int totalWords,
+                          Map<Long, Integer> minutesBySubject, Map<Long, Integer> wordsBySubject) {
+}
@@ -1,29 +0,0 @@
-package com.studytracker.study;
-
-import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.databind.JsonSerializer;
-import com.fasterxml.jackson.databind.SerializerProvider;
-
-import java.io.IOException;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
-
-public class LocalDateTimeToBeijingSerializer extends JsonSerializer<LocalDateTime> {
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
-    
-    @Override
-    public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
-        if (value == null) {
-            gen.writeNull();
-            return;
-        }
-        // 将 UTC 时间转换为北京时间（+8时区）
-        String beijingTime = value.atZone(ZoneOffset.UTC)
-                .withZoneSameInstant(ZoneId.of("Asia/Shanghai"))
-                .format(FORMATTER);
-        gen.writeString(beijingTime);
-    }
-}
-
@@ -0,0 +1,17 @@
+package com.studytracker.study;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 用户时区下某一天的学习记录及总分钟数，/api/sessions/days/{date} 和 /api/dashboard 共用。
+ */
+public record StudyDay(List<StudySession> sessions, int totalMinutes) {
+
+    public static StudyDay of(List<StudySession> sessions) {
+        int totalMinutes = sessions.stream()
+                .mapToInt(s -> (int) Duration.between(s.getStartTime(), s.getEndTime()).toMinutes())
+                .sum();
+        return new StudyDay(sessions, totalMinutes);
+    }
+}
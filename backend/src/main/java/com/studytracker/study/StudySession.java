@@ -1,7 +1,5 @@
 package com.studytracker.study;
 
-import com.fasterxml.jackson.annotation.JsonFormat;
-import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -24,10 +22,8 @@ public class StudySession {
     @Column(name = "subject_id", nullable = false)
     private Long subjectId;
     @Column(name = "start_time", columnDefinition = "DATETIME", nullable = false)
-    @JsonSerialize(using = LocalDateTimeToBeijingSerializer.class)
     private LocalDateTime startTime;
     @Column(name = "end_time", columnDefinition = "DATETIME", nullable = false)
-    @JsonSerialize(using = LocalDateTimeToBeijingSerializer.class)
     private LocalDateTime endTime;
     private String note;
     @Column(name = "created_at")
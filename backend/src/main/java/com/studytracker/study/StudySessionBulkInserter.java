@@ -0,0 +1,33 @@
+package com.studytracker.study;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * IDENTITY 主键让 Hibernate 无法做 JDBC batch，批量导入改走 JdbcTemplate。
+ * 配合连接串上的 rewriteBatchedStatements=true，每批合并成一条多值 INSERT。
+ */
+@Component
+public class StudySessionBulkInserter {
+    private static final String INSERT_SQL =
+            "INSERT INTO study_sessions (user_id, subject_id, start_time, end_time, note) VALUES (?, ?, ?, ?, ?)";
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbc;
+
+    public StudySessionBulkInserter(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public void insertAll(List<StudySession> sessions) {
+        jdbc.batchUpdate(INSERT_SQL, sessions, BATCH_SIZE, (ps, s) -> {
+            ps.setLong(1, s.getUserId());
+            ps.setLong(2, s.getSubjectId());
+            ps.setObject(3, s.getStartTime());
+            ps.setObject(4, s.getEndTime());
+            ps.setString(5, s.getNote());
+        });
+    }
+}
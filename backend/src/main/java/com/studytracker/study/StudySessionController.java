@@ -1,69 +1,205 @@
 package com.studytracker.study;
 
+import com.studytracker.analytics.DailyStatsBatch;
+import com.studytracker.analytics.DailyStatsService;
+import com.studytracker.goal.StreakService;
+import com.studytracker.subject.SubjectRepository;
+import com.studytracker.stream.TodayStream;
 import com.studytracker.support.AuthUtils;
+import com.studytracker.support.Csv;
+import com.studytracker.support.DataVersions;
+import com.studytracker.support.KeysetCursor;
+import com.studytracker.support.KeysetPage;
+import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
-import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/study-sessions")
 public class StudySessionController {
+    /** 单个 JSON 批次最多条数，更大的数据量走 CSV 导入 */
+    static final int MAX_BATCH = 5000;
+    private static final int IMPORT_CHUNK = 1000;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final StudySessionRepository repo;
     private final AuthUtils auth;
+    private final DailyStatsService dailyStats;
+    private final SubjectRepository subjectRepo;
+    private final StudySessionBulkInserter bulkInserter;
+    private final DataVersions versions;
+    private final TodayStream todayStream;
+    private final StreakService streaks;
 
-    public StudySessionController(StudySessionRepository repo, AuthUtils auth) {
+    public StudySessionController(StudySessionRepository repo, AuthUtils auth, DailyStatsService dailyStats,
+                                  SubjectRepository subjectRepo, StudySessionBulkInserter bulkInserter,
+                                  DataVersions versions, TodayStream todayStream, StreakService streaks) {
         this.repo = repo;
         this.auth = auth;
+        this.dailyStats = dailyStats;
+        this.subjectRepo = subjectRepo;
+        this.bulkInserter = bulkInserter;
+        this.versions = versions;
+        this.todayStream = todayStream;
+        this.streaks = streaks;
     }
 
     record CreateReq(@NotNull Long subjectId, @NotNull OffsetDateTime startTime, @NotNull OffsetDateTime endTime, String note) {}
 
     @PostMapping
-    public StudySession create(@Valid @RequestBody CreateReq req) {
-        StudySession s = new StudySession();
-        s.setUserId(auth.currentUserId());
-        s.setSubjectId(req.subjectId());
-        s.setStartTime(req.startTime().withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime());
-        s.setEndTime(req.endTime().withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime());
-        s.setNote(req.note());
-        return repo.save(s);
+    @Transactional
+    public ResponseEntity<?> create(@Valid @RequestBody CreateReq req) {
+        Long uid = auth.currentUserId();
+        // 按 @SQLRestriction 过滤，已删除的科目不能再写入，否则汇总行会在删除之后重新出现
+        if (!subjectRepo.findIdsByUserId(uid).contains(req.subjectId())) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unknown subjectId " + req.subjectId()));
+        }
+        StudySession s = toEntity(uid, req.subjectId(), req.startTime(), req.endTime(), req.note());
+        ZoneId zone = auth.currentZone();
+        repo.save(s);
+        dailyStats.recordSession(s, zone);
+        streaks.recordDay(s.getUserId(), DailyStatsService.dayOf(s, zone));
+        versions.bump(s.getUserId());
+        todayStream.recordSession(s);
+        return ResponseEntity.ok(s);
+    }
+
+    record BatchReq(@NotEmpty @Size(max = MAX_BATCH) List<@Valid @NotNull CreateReq> items) {}
+
+    @PostMapping("/batch")
+    @Transactional
+    public ResponseEntity<?> createBatch(@Valid @RequestBody BatchReq req) {
+        Long uid = auth.currentUserId();
+        // 科目归属每批只查一次
+        Set<Long> ownedSubjects = subjectRepo.findIdsByUserId(uid);
+        List<StudySession> sessions = new ArrayList<>(req.items().size());
+        for (CreateReq item : req.items()) {
+            if (!ownedSubjects.contains(item.subjectId())) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Unknown subjectId " + item.subjectId()));
+            }
+            sessions.add(toEntity(uid, item.subjectId(), item.startTime(), item.endTime(), item.note()));
+        }
+        insert(sessions, auth.currentZone());
+        // 批量数据可能落在任意日期，直接重算
+        streaks.recompute(uid);
+        versions.bump(uid);
+        todayStream.reload(uid);
+        return ResponseEntity.ok(Map.of("inserted", sessions.size()));
+    }
+
+    /**
+     * 流式导入 CSV：subjectId,startTime,endTime,note，时间为带时区偏移的 ISO-8601。
+     * 任意一行出错整个导入回滚。
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "text/plain"})
+    // 上传中断抛出的 IOException 是受检异常，默认不回滚，需显式声明
+    @Transactional(rollbackOn = IOException.class)
+    public ResponseEntity<?> importCsv(InputStream body) throws IOException {
+        Long uid = auth.currentUserId();
+        ZoneId zone = auth.currentZone();
+        Set<Long> ownedSubjects = subjectRepo.findIdsByUserId(uid);
+        long rows = Csv.read(body, "subjectId", IMPORT_CHUNK, fields -> {
+            Long subjectId = Long.valueOf(Csv.field(fields, 0));
+            if (!ownedSubjects.contains(subjectId)) {
+                throw new IllegalArgumentException("Unknown subjectId " + subjectId);
+            }
+            return toEntity(uid, subjectId, OffsetDateTime.parse(Csv.field(fields, 1)),
+                    OffsetDateTime.parse(Csv.field(fields, 2)), Csv.field(fields, 3));
+        }, chunk -> insert(chunk, zone));
+        // 批量数据可能落在任意日期，直接重算
+        streaks.recompute(uid);
+        versions.bump(uid);
+        todayStream.reload(uid);
+        return ResponseEntity.ok(Map.of("inserted", rows));
     }
 
+    /**
+     * 不带 limit/cursor 时返回整个区间（兼容旧前端）；带上则按 (startTime, id) 游标分页，
+     * 返回 {items, next}，next 为 null 表示没有下一页。
+     */
     @GetMapping
-    public List<StudySession> list(
+    public ResponseEntity<?> list(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor
     ) {
-        // 查询范围基于北京时间的日期
-        LocalDateTime fromUtc = from.atStartOfDay().atZone(ZoneId.of("Asia/Shanghai")).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
-        LocalDateTime toUtc = to.plusDays(1).atStartOfDay().atZone(ZoneId.of("Asia/Shanghai")).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
-        return repo.findByUserIdAndStartTimeBetweenOrderByStartTimeAsc(auth.currentUserId(), fromUtc, toUtc);
+        // 查询范围基于用户时区的日期
+        ZoneId zone = auth.currentZone();
+        LocalDateTime fromUtc = startOfDayUtc(from, zone);
+        LocalDateTime toUtc = startOfDayUtc(to.plusDays(1), zone);
+        if (limit == null && cursor == null) {
+            return ResponseEntity.ok(repo.findByUserIdAndStartTimeBetweenOrderByStartTimeAsc(auth.currentUserId(), fromUtc, toUtc));
+        }
+
+        int pageSize = Math.min(limit != null ? limit : DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+        if (pageSize <= 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid limit"));
+        }
+        LocalDateTime afterTime = fromUtc;
+        long afterId = 0;
+        if (cursor != null) {
+            try {
+                KeysetCursor c = KeysetCursor.decode(cursor);
+                afterTime = LocalDateTime.parse(c.key());
+                afterId = c.id();
+            } catch (RuntimeException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+            }
+        }
+        List<StudySession> rows = repo.findPage(auth.currentUserId(), fromUtc, toUtc, afterTime, afterId,
+                PageRequest.of(0, pageSize + 1));
+        return ResponseEntity.ok(KeysetPage.of(rows, pageSize,
+                s -> new KeysetCursor(s.getStartTime().toString(), s.getId())));
     }
 
     @GetMapping("/days/{date}")
-    public ResponseEntity<?> day(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
-        // 查询范围基于北京时间的日期
-        LocalDateTime fromUtc = date.atStartOfDay().atZone(ZoneId.of("Asia/Shanghai")).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
-        LocalDateTime toUtc = date.plusDays(1).atStartOfDay().atZone(ZoneId.of("Asia/Shanghai")).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
-        List<StudySession> sessions = repo.findByUserIdAndStartTimeBetweenOrderByStartTimeAsc(auth.currentUserId(), fromUtc, toUtc);
-        int totalMinutes = sessions.stream().mapToInt(s -> (int) java.time.Duration.between(s.getStartTime(), s.getEndTime()).toMinutes()).sum();
-        return ResponseEntity.ok(Map.of("sessions", sessions, "totalMinutes", totalMinutes));
+    public ResponseEntity<?> day(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Long uid = auth.currentUserId();
+        // 查询范围基于用户时区的日期
+        ZoneId zone = auth.currentZone();
+        return versions.conditional(ifNoneMatch, uid, "day:" + date, () -> repo.findDay(uid, date, zone));
     }
-}
-
-
 
+    private void insert(List<StudySession> sessions, ZoneId zone) {
+        bulkInserter.insertAll(sessions);
+        DailyStatsBatch stats = new DailyStatsBatch();
+        sessions.forEach(s -> stats.addSession(s, zone));
+        dailyStats.apply(stats);
+    }
 
+    private static StudySession toEntity(Long uid, Long subjectId, OffsetDateTime start, OffsetDateTime end, String note) {
+        StudySession s = new StudySession();
+        s.setUserId(uid);
+        s.setSubjectId(subjectId);
+        s.setStartTime(start.withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime());
+        s.setEndTime(end.withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime());
+        s.setNote(note);
+        return s;
+    }
 
+    private static LocalDateTime startOfDayUtc(LocalDate date, ZoneId zone) {
+        return date.atStartOfDay(zone).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+}
@@ -1,19 +1,49 @@
 package com.studytracker.study;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.List;
 
 public interface StudySessionRepository extends JpaRepository<StudySession, Long> {
+    @Transactional(readOnly = true)
     List<StudySession> findByUserIdAndStartTimeBetweenOrderByStartTimeAsc(Long userId, LocalDateTime from, LocalDateTime to);
+
+    /** 用户时区下某一天的记录，按开始时间升序 */
+    default StudyDay findDay(Long userId, LocalDate date, ZoneId zone) {
+        LocalDateTime fromUtc = date.atStartOfDay(zone).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+        LocalDateTime toUtc = date.plusDays(1).atStartOfDay(zone).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+        return StudyDay.of(findByUserIdAndStartTimeBetweenOrderByStartTimeAsc(userId, fromUtc, toUtc));
+    }
+
+    /** 按 (start_time, id) 游标分页，走 idx_user_date(user_id, start_time) 索引 */
+    @Query("""
+            SELECT s FROM StudySession s
+            WHERE s.userId = :userId AND s.startTime >= :from AND s.startTime < :to
+              AND (s.startTime > :afterTime OR (s.startTime = :afterTime AND s.id > :afterId))
+            ORDER BY s.startTime, s.id
+            """)
+    @Transactional(readOnly = true)
+    List<StudySession> findPage(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+                                @Param("to") LocalDateTime to, @Param("afterTime") LocalDateTime afterTime,
+                                @Param("afterId") Long afterId, Pageable pageable);
     
-    @Modifying(clearAutomatically = true)
-    @Query("DELETE FROM StudySession s WHERE s.subjectId = :subjectId")
-    void deleteBySubjectId(@Param("subjectId") Long subjectId);
+    /** 分批删除已删科目的记录，每次最多 limit 行，返回实际删除数 */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "study_sessions"))
+    @Query(value = "DELETE FROM study_sessions WHERE subject_id = :subjectId LIMIT :limit", nativeQuery = true)
+    int deleteChunkBySubjectId(@Param("subjectId") Long subjectId, @Param("limit") int limit);
 }
 
 
@@ -1,6 +1,10 @@
 package com.studytracker.subject;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.SQLRestriction;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -12,6 +16,9 @@ import java.time.Instant;
 @Getter
 @Setter
 @NoArgsConstructor
+@SQLRestriction("deleted_at IS NULL")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "subjects")
 public class Subject {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -30,6 +37,10 @@ public class Subject {
     private Integer dailyTarget = 0;
     @Column(name = "created_at")
     private Instant createdAt;
+    /** 非空表示已删除，等待 {@link SubjectPurgeJob} 清理关联数据；所有 JPA 查询都会过滤掉 */
+    @JsonIgnore
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
 
     @PrePersist
     void onCreate() { if (createdAt == null) createdAt = Instant.now(); }
@@ -1,35 +1,45 @@
 package com.studytracker.subject;
 
-import com.studytracker.study.StudySessionRepository;
+import com.studytracker.analytics.DailyStatsService;
+import com.studytracker.goal.StreakService;
 import com.studytracker.support.AuthUtils;
-import com.studytracker.words.WordLogRepository;
+import com.studytracker.support.DataVersions;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/subjects")
 public class SubjectController {
     private final SubjectRepository repo;
     private final AuthUtils auth;
-    private final StudySessionRepository studySessionRepo;
-    private final WordLogRepository wordLogRepo;
+    private final SubjectPurgeRepository purgeRepo;
+    private final DailyStatsService dailyStats;
+    private final DataVersions versions;
+    private final StreakService streaks;
 
-    public SubjectController(SubjectRepository repo, AuthUtils auth, 
-                             StudySessionRepository studySessionRepo, WordLogRepository wordLogRepo) {
+    public SubjectController(SubjectRepository repo, AuthUtils auth, SubjectPurgeRepository purgeRepo,
+                             DailyStatsService dailyStats, DataVersions versions, StreakService streaks) {
         this.repo = repo;
         this.auth = auth;
-        this.studySessionRepo = studySessionRepo;
-        this.wordLogRepo = wordLogRepo;
+        this.purgeRepo = purgeRepo;
+        this.dailyStats = dailyStats;
+        this.versions = versions;
+        this.streaks = streaks;
     }
 
     @GetMapping
-    public List<Subject> list() {
-        return repo.findByUserIdAndArchivedFalseOrderByCreatedAtDesc(auth.currentUserId());
+    public ResponseEntity<?> list(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Long uid = auth.currentUserId();
+        return versions.conditional(ifNoneMatch, uid, "subjects",
+                () -> repo.findByUserIdAndArchivedFalseOrderByCreatedAtDesc(uid));
     }
 
     record CreateSubjectRequest(@NotBlank String name, String colorHex, String studyType, Integer dailyTarget) {}
@@ -42,39 +52,75 @@ public class SubjectController {
         s.setColorHex(req.colorHex());
         s.setStudyType(req.studyType() != null ? req.studyType() : "MINUTES");
         s.setDailyTarget(req.dailyTarget() != null ? req.dailyTarget() : 0);
-        return repo.save(s);
+        repo.save(s);
+        versions.bump(s.getUserId());
+        return s;
     }
 
     record PatchSubjectRequest(String name, String colorHex, Boolean archived, String studyType, Integer dailyTarget) {}
 
+    /** 读-改-写，在读写事务里加载，走主库；只读的 findById 可能读到从库上的旧行，覆盖掉刚改的字段 */
     @PatchMapping("/{id}")
+    @Transactional
     public ResponseEntity<?> patch(@PathVariable Long id, @RequestBody PatchSubjectRequest req) {
-        return repo.findById(id).filter(s -> s.getUserId().equals(auth.currentUserId()))
+        return owned(id)
                 .map(s -> {
                     if (req.name() != null) s.setName(req.name());
                     if (req.colorHex() != null) s.setColorHex(req.colorHex());
                     if (req.archived() != null) s.setArchived(req.archived());
+                    String studyType = s.getStudyType();
+                    Integer dailyTarget = s.getDailyTarget();
                     if (req.studyType() != null) s.setStudyType(req.studyType());
                     if (req.dailyTarget() != null) s.setDailyTarget(req.dailyTarget());
-                    return ResponseEntity.ok(repo.save(s));
+                    repo.save(s);
+                    // 达标口径变了才需要重算该用户的连续天数
+                    if (!Objects.equals(studyType, s.getStudyType()) || !Objects.equals(dailyTarget, s.getDailyTarget())) {
+                        streaks.recompute(s.getUserId());
+                    }
+                    versions.bump(s.getUserId());
+                    return ResponseEntity.ok(s);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * 只标记删除并登记清理任务，科目立即从列表消失；学习/背词记录由 {@link SubjectPurgeJob} 后台分批删除。
+     * 每日汇总里该科目的行数有限，直接删掉，统计立即不再包含它。
+     */
     @DeleteMapping("/{id}")
     @Transactional
     public ResponseEntity<?> delete(@PathVariable Long id) {
-        return repo.findById(id).filter(s -> s.getUserId().equals(auth.currentUserId()))
+        return owned(id)
                 .map(s -> { 
-                    // 删除所有相关的学习记录和背词记录
-                    studySessionRepo.deleteBySubjectId(id);
-                    wordLogRepo.deleteBySubjectId(id);
-                    // 最后删除科目
-                    repo.delete(s); 
-                    return ResponseEntity.noContent().build(); 
+                    Instant now = Instant.now();
+                    s.setDeletedAt(now);
+                    repo.save(s);
+                    SubjectPurge purge = new SubjectPurge();
+                    purge.setSubjectId(id);
+                    purge.setUserId(s.getUserId());
+                    purge.setRequestedAt(now);
+                    purgeRepo.save(purge);
+                    dailyStats.removeSubject(id);
+                    streaks.recompute(s.getUserId());
+                    versions.bump(s.getUserId());
+                    return ResponseEntity.accepted().body(purge);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    /** findById 命中二级缓存时不经过 @SQLRestriction，已删除的科目要自己过滤 */
+    private Optional<Subject> owned(Long id) {
+        return repo.findById(id)
+                .filter(s -> s.getDeletedAt() == null && s.getUserId().equals(auth.currentUserId()));
+    }
+
+    /** 已删除科目的清理进度 */
+    @GetMapping("/{id}/purge")
+    public ResponseEntity<?> purgeProgress(@PathVariable Long id) {
+        return purgeRepo.findById(id).filter(p -> p.getUserId().equals(auth.currentUserId()))
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
 }
 
 
@@ -0,0 +1,37 @@
+package com.studytracker.subject;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * 已删除科目的清理进度，GET /api/subjects/{id}/purge 直接返回。
+ */
+@Entity
+@Table(name = "subject_purges")
+@Getter
+@Setter
+@NoArgsConstructor
+public class SubjectPurge {
+    public enum Status { PENDING, RUNNING, DONE }
+
+    @Id
+    @Column(name = "subject_id")
+    private Long subjectId;
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.PENDING;
+    @Column(name = "sessions_deleted", nullable = false)
+    private long sessionsDeleted;
+    @Column(name = "word_logs_deleted", nullable = false)
+    private long wordLogsDeleted;
+    @Column(name = "requested_at", nullable = false)
+    private Instant requestedAt;
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+}
@@ -0,0 +1,95 @@
+package com.studytracker.subject;
+
+import com.studytracker.analytics.DailyStatsService;
+import com.studytracker.goal.StreakService;
+import com.studytracker.study.StudySessionRepository;
+import com.studytracker.support.DataVersions;
+import com.studytracker.words.WordLogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+
+/**
+ * 后台清理已删除科目的学习/背词记录。每批 DELETE ... LIMIT chunk-size 行、单独提交，
+ * 批间暂停 pause-ms，避免长时间持有行锁；进度写在 subject_purges，重启后从未完成的继续。
+ * 多实例同时处理同一科目也安全：DELETE 幂等，计数按实际删除行数累加。
+ * 删除时仍在途的写入可能又写出该科目的每日汇总行，最后一个事务里再清一次。
+ */
+@Component
+@Slf4j
+public class SubjectPurgeJob {
+    private final SubjectPurgeRepository purges;
+    private final SubjectRepository subjects;
+    private final StudySessionRepository sessions;
+    private final WordLogRepository wordLogs;
+    private final DailyStatsService dailyStats;
+    private final StreakService streaks;
+    private final DataVersions versions;
+    private final TransactionTemplate tx;
+    private final int chunkSize;
+    private final long pauseMs;
+
+    public SubjectPurgeJob(SubjectPurgeRepository purges, SubjectRepository subjects,
+                           StudySessionRepository sessions, WordLogRepository wordLogs,
+                           DailyStatsService dailyStats, StreakService streaks, DataVersions versions,
+                           TransactionTemplate tx,
+                           @Value("${app.purge.chunk-size:1000}") int chunkSize,
+                           @Value("${app.purge.pause-ms:50}") long pauseMs) {
+        this.purges = purges;
+        this.subjects = subjects;
+        this.sessions = sessions;
+        this.wordLogs = wordLogs;
+        this.dailyStats = dailyStats;
+        this.streaks = streaks;
+        this.versions = versions;
+        this.tx = tx;
+        this.chunkSize = chunkSize;
+        this.pauseMs = pauseMs;
+    }
+
+    @Scheduled(fixedDelayString = "${app.purge.interval-ms:5000}")
+    public void run() {
+        for (SubjectPurge purge : purges.findByStatusNotOrderByRequestedAtAsc(SubjectPurge.Status.DONE)) {
+            try {
+                purge(purge.getSubjectId(), purge.getUserId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // 下一轮重试，已删除的部分不会重复计数
+                log.warn("purge: subject purge failed subjectId={} msg={}", purge.getSubjectId(), e.getMessage());
+            }
+        }
+    }
+
+    private void purge(Long subjectId, Long userId) throws InterruptedException {
+        long started = System.currentTimeMillis();
+        while (true) {
+            int[] deleted = tx.execute(status -> {
+                int s = sessions.deleteChunkBySubjectId(subjectId, chunkSize);
+                int w = s < chunkSize ? wordLogs.deleteChunkBySubjectId(subjectId, chunkSize - s) : 0;
+                purges.addProgress(subjectId, s, w);
+                return new int[]{s, w};
+            });
+            if (deleted[0] + deleted[1] == 0) break;
+            Thread.sleep(pauseMs);
+        }
+        tx.executeWithoutResult(status -> {
+            subjects.purge(subjectId);
+            if (dailyStats.removeSubject(subjectId) > 0) {
+                log.info("purge: removed stale daily stats subjectId={}", subjectId);
+                streaks.recompute(userId);
+                versions.bump(userId);
+            }
+            purges.findById(subjectId).ifPresent(p -> {
+                p.setStatus(SubjectPurge.Status.DONE);
+                p.setFinishedAt(Instant.now());
+            });
+        });
+        log.info("purge: subject purged subjectId={} tookMs={}", subjectId, System.currentTimeMillis() - started);
+    }
+}
@@ -0,0 +1,21 @@
+package com.studytracker.subject;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface SubjectPurgeRepository extends JpaRepository<SubjectPurge, Long> {
+    List<SubjectPurge> findByStatusNotOrderByRequestedAtAsc(SubjectPurge.Status status);
+
+    @Modifying
+    @Query("""
+            UPDATE SubjectPurge p SET p.status = com.studytracker.subject.SubjectPurge.Status.RUNNING,
+                p.sessionsDeleted = p.sessionsDeleted + :sessions,
+                p.wordLogsDeleted = p.wordLogsDeleted + :wordLogs
+            WHERE p.subjectId = :subjectId
+            """)
+    void addProgress(@Param("subjectId") Long subjectId, @Param("sessions") int sessions, @Param("wordLogs") int wordLogs);
+}
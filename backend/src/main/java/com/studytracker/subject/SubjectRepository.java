@@ -1,11 +1,42 @@
 package com.studytracker.subject;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
 
 import java.util.List;
+import java.util.Set;
 
 public interface SubjectRepository extends JpaRepository<Subject, Long> {
+    /** 走查询缓存；subjects 表有任何写入都会让所有用户的缓存结果失效，写入很少，可以接受 */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "subject-queries")
+    })
+    @Transactional(readOnly = true)
     List<Subject> findByUserIdAndArchivedFalseOrderByCreatedAtDesc(Long userId);
+
+    /** 含已归档的科目 */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "subject-queries")
+    })
+    List<Subject> findByUserId(Long userId);
+
+    @Query("SELECT s.id FROM Subject s WHERE s.userId = :userId")
+    Set<Long> findIdsByUserId(@Param("userId") Long userId);
+
+    /** 关联数据清理完后物理删除；实体上的 deleted_at 过滤对原生 SQL 不生效 */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "subjects"))
+    @Query(value = "DELETE FROM subjects WHERE id = :id AND deleted_at IS NOT NULL", nativeQuery = true)
+    int purge(@Param("id") Long id);
 }
 
 
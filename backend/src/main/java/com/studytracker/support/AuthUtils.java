@@ -1,11 +1,14 @@
 package com.studytracker.support;
 
+import com.studytracker.security.AuthenticatedUser;
 import com.studytracker.user.User;
 import com.studytracker.user.UserRepository;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import java.time.ZoneId;
+
 @Component
 public class AuthUtils {
     private final UserRepository userRepository;
@@ -21,7 +24,21 @@ public class AuthUtils {
         return userRepository.findByEmail(email).orElseThrow();
     }
 
-    public Long currentUserId() { return currentUser().getId(); }
+    public Long currentUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.id();
+        }
+        return currentUser().getId();
+    }
+
+    public ZoneId currentZone() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.zone();
+        }
+        return UserZones.of(currentUser().getTimezone());
+    }
 }
 
 
@@ -0,0 +1,122 @@
+package com.studytracker.support;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 简单的 CSV 读写：逗号分隔，支持双引号包裹字段（"" 表示引号），引号内可以换行。
+ */
+public final class Csv {
+
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(List<String> fields);
+    }
+
+    private Csv() {}
+
+    /**
+     * 逐行读取 in，每凑够 chunkSize 行交给 chunkConsumer，内存占用与文件大小无关。
+     * 第一行以 headerPrefix 开头时视为表头跳过。返回处理的行数。
+     * 引号未闭合时接着读下一行，出错时报告的是记录开始的行号。
+     */
+    public static <T> long read(InputStream in, String headerPrefix, int chunkSize,
+                                RowMapper<T> mapper, Consumer<List<T>> chunkConsumer) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<T> chunk = new ArrayList<>(chunkSize);
+        long lineNo = 0;
+        long rows = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            long startLine = ++lineNo;
+            if (line.isBlank() || (lineNo == 1 && line.startsWith(headerPrefix))) continue;
+            if (oddQuotes(line)) {
+                StringBuilder record = new StringBuilder(line);
+                boolean open = true;
+                while (open) {
+                    String next = reader.readLine();
+                    if (next == null) throw new CsvFormatException(startLine, "Unterminated quoted field");
+                    lineNo++;
+                    record.append('\n').append(next);
+                    open ^= oddQuotes(next);
+                }
+                line = record.toString();
+            }
+            try {
+                chunk.add(mapper.map(parseLine(line)));
+            } catch (CsvFormatException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw new CsvFormatException(startLine, e.getMessage());
+            }
+            rows++;
+            if (chunk.size() == chunkSize) {
+                chunkConsumer.accept(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) chunkConsumer.accept(chunk);
+        return rows;
+    }
+
+    /** 转义的 "" 成对出现，一行里有奇数个引号就会切换是否处于引号内 */
+    private static boolean oddQuotes(String line) {
+        int count = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') count++;
+        }
+        return (count & 1) == 1;
+    }
+
+    public static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /** 按需加引号转义，null 输出为空字段 */
+    public static String escape(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /** 空字符串视为 null */
+    public static String field(List<String> fields, int index) {
+        if (index >= fields.size()) return null;
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,10 @@
+package com.studytracker.support;
+
+/**
+ * CSV 导入时某一行无法解析或校验失败，整个导入回滚并返回 400。
+ */
+public class CsvFormatException extends RuntimeException {
+    public CsvFormatException(long line, String message) {
+        super("line " + line + ": " + message);
+    }
+}
@@ -0,0 +1,92 @@
+package com.studytracker.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * 每个用户的数据版本号（users.data_version），任何写操作都会递增。读接口据此生成 ETag，
+ * If-None-Match 命中时直接返回 304，不执行查询。
+ * 版本号存在主库里，所有实例看到的一致：在一个实例写入、从另一个实例读取也不会拿到过期的 304。
+ * 递增的同时标记读自己的写（{@link ReadRouting}），之后一小段时间该用户的只读查询走主库。
+ * <p>
+ * Hibernate 二级缓存在每个实例本地，写入后其他实例在缓存过期前可能还返回旧数据；
+ * 写入后 stale-window-seconds 内不发 ETag，避免旧数据以新版本号被浏览器缓存、之后一直 304。
+ */
+@Component
+public class DataVersions {
+    private final JdbcTemplate jdbc;
+    private final ReadRouting readRouting;
+    private final long staleWindowSeconds;
+
+    public DataVersions(JdbcTemplate jdbc, ReadRouting readRouting,
+                        @Value("${app.cache.stale-window-seconds:40}") long staleWindowSeconds) {
+        this.jdbc = jdbc;
+        this.readRouting = readRouting;
+        this.staleWindowSeconds = staleWindowSeconds;
+    }
+
+    /**
+     * 按主键读一行；不在只读事务里，走主库，不受从库延迟影响。
+     * 最近 stale-window-seconds 内有写入时返回 null（时间按数据库时钟比较）。
+     */
+    private Long settledVersion(Long userId) {
+        return jdbc.query("""
+                SELECT data_version, data_changed_at IS NULL OR data_changed_at < NOW(3) - INTERVAL ? SECOND
+                FROM users WHERE id = ?
+                """, rs -> rs.next() && rs.getBoolean(2) ? rs.getLong(1) : null, staleWindowSeconds, userId);
+    }
+
+    /**
+     * 写操作后调用。处于事务中时在同一事务里递增，和数据一起提交；
+     * 并发的读请求在提交前只能读到旧版本号，不会把未提交前的旧数据缓存在新版本号下。
+     */
+    public void bump(Long userId) {
+        jdbc.update("UPDATE users SET data_version = data_version + 1, data_changed_at = NOW(3) WHERE id = ?", userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    readRouting.pin(userId);
+                }
+            });
+        } else {
+            readRouting.pin(userId);
+        }
+    }
+
+    /** scope 区分同一用户的不同视图（接口、参数），不能包含双引号；刚写入过时为 null，不发 ETag */
+    public String etag(Long userId, String scope) {
+        Long version = settledVersion(userId);
+        return version == null ? null : "\"" + version + "." + scope + "\"";
+    }
+
+    /** If-None-Match 与当前版本一致时返回 304，否则才调用 body 查询数据 */
+    public ResponseEntity<?> conditional(String ifNoneMatch, Long userId, String scope, Supplier<?> body) {
+        String etag = etag(userId, scope);
+        if (etag == null) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(body.get());
+        }
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(body.get());
+    }
+
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,23 @@
+package com.studytracker.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 游标分页的位置：排序键 + id，对客户端编码为不透明字符串。
+ */
+public record KeysetCursor(String key, long id) {
+
+    public String encode() {
+        String raw = key + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** 解析失败抛 IllegalArgumentException */
+    public static KeysetCursor decode(String cursor) {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int sep = raw.lastIndexOf('|');
+        if (sep < 0) throw new IllegalArgumentException("Invalid cursor");
+        return new KeysetCursor(raw.substring(0, sep), Long.parseLong(raw.substring(sep + 1)));
+    }
+}
@@ -0,0 +1,19 @@
+package com.studytracker.support;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 一页结果，next 为下一页游标，没有更多数据时为 null。
+ */
+public record KeysetPage<T>(List<T> items, String next) {
+
+    /** rows 按 limit + 1 条查询，多出的一条只用来判断是否还有下一页 */
+    public static <T> KeysetPage<T> of(List<T> rows, int limit, Function<T, KeysetCursor> cursorOf) {
+        if (rows.size() <= limit) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new KeysetPage<>(items, cursorOf.apply(items.get(limit - 1)).encode());
+    }
+}
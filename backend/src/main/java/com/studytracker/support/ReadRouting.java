@@ -0,0 +1,41 @@
+package com.studytracker.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.studytracker.security.AuthenticatedUser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 读自己的写：用户写入提交后的一段时间内，其只读查询仍走主库，避免从库延迟导致刚保存的数据“消失”。
+ * 由 {@link DataVersions#bump} 标记，{@link ReplicaRoutingDataSource} 取连接时检查。
+ */
+@Component
+public class ReadRouting {
+    private final Cache<Long, Boolean> pinned;
+
+    public ReadRouting(@Value("${app.datasource.read-your-writes-ms:5000}") long windowMs) {
+        this.pinned = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(windowMs))
+                .maximumSize(100_000)
+                .build();
+    }
+
+    public void pin(Long userId) {
+        pinned.put(userId, Boolean.TRUE);
+    }
+
+    public boolean isPinned(Long userId) {
+        return userId != null && pinned.getIfPresent(userId) != null;
+    }
+
+    /** 当前线程上的登录用户是否应读主库；只看 token 里的用户，不查库 */
+    public boolean currentUserPinned() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.getPrincipal() instanceof AuthenticatedUser user && isPinned(user.id());
+    }
+}
@@ -0,0 +1,192 @@
+package com.studytracker.support;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 只读连接的来源，作为 LazyConnectionDataSourceProxy 的 readOnlyDataSource：
+ * 在延迟不超过阈值的从库之间轮询；用户处于读自己写的窗口内、从库全部落后或不可用时退回主库。
+ * 延迟由定时任务通过 SHOW REPLICA STATUS 探测（旧版本 MySQL/MariaDB 退回 SHOW SLAVE STATUS，
+ * 需要 REPLICATION CLIENT 权限），探测前从库不参与路由。
+ * 可用从库数为 0 时读全部落在主库，datasource.replica.healthy 指标据此告警。
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+    private static final int LAG_QUERY_TIMEOUT_SECONDS = 2;
+    /** MySQL 8.0.22 / MariaDB 10.5 之前只有 SHOW SLAVE STATUS */
+    private static final List<String> STATUS_QUERIES = List.of("SHOW REPLICA STATUS", "SHOW SLAVE STATUS");
+    private static final int ER_PARSE_ERROR = 1064;
+    private static final int ER_SPECIFIC_ACCESS_DENIED = 1227;
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReadRouting routing;
+    private final long maxLagSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile ScheduledFuture<?> lagChecks;
+    private volatile boolean noneHealthy;
+
+    private static final class Replica {
+        final String name;
+        final DataSource dataSource;
+        /** 最近一次探测到的延迟秒数，NaN 表示未知（未探测、复制中断或连不上） */
+        volatile double lagSeconds = Double.NaN;
+        volatile boolean healthy;
+        /** STATUS_QUERIES 中该从库支持的那条 */
+        volatile int statusQuery;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, ReadRouting routing,
+                                    long maxLagSeconds, MeterRegistry registry) {
+        this.primary = primary;
+        this.routing = routing;
+        this.maxLagSeconds = maxLagSeconds;
+        replicas.forEach((name, ds) -> {
+            Replica r = new Replica(name, ds);
+            this.replicas.add(r);
+            Gauge.builder("datasource.replica.lag", r, x -> x.lagSeconds)
+                    .tag("name", name)
+                    .baseUnit("seconds")
+                    .register(registry);
+        });
+        Gauge.builder("datasource.replica.healthy", this, ReplicaRoutingDataSource::healthyCount)
+                .description("replicas currently in rotation; 0 means all reads go to the primary")
+                .register(registry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!routing.currentUserPinned()) {
+            int n = replicas.size();
+            for (int i = 0; i < n; i++) {
+                Replica r = replicas.get(Math.floorMod(next.getAndIncrement(), n));
+                if (!r.healthy) continue;
+                try {
+                    return r.dataSource.getConnection();
+                } catch (SQLException e) {
+                    // 下次探测成功前不再分配到这个从库
+                    r.healthy = false;
+                    log.warn("datasource: replica unavailable name={} err={}", r.name, e.toString());
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("replica connections use the configured credentials");
+    }
+
+    public void scheduleLagChecks(TaskScheduler scheduler, Duration interval) {
+        lagChecks = scheduler.scheduleWithFixedDelay(this::checkLag, interval);
+    }
+
+    public void checkLag() {
+        for (Replica r : replicas) {
+            recordLag(r.name, measureLag(r));
+        }
+        boolean none = !replicas.isEmpty() && healthyCount() == 0;
+        if (none != noneHealthy) {
+            if (none) {
+                log.error("datasource: no healthy replica, all reads go to the primary replicas={}", replicas.size());
+            } else {
+                log.info("datasource: replicas back in rotation healthy={}", healthyCount());
+            }
+            noneHealthy = none;
+        }
+    }
+
+    int healthyCount() {
+        int n = 0;
+        for (Replica r : replicas) {
+            if (r.healthy) n++;
+        }
+        return n;
+    }
+
+    /** lagSeconds 为 null 表示延迟未知，按不可用处理 */
+    void recordLag(String name, Long lagSeconds) {
+        for (Replica r : replicas) {
+            if (!r.name.equals(name)) continue;
+            boolean healthy = lagSeconds != null && lagSeconds <= maxLagSeconds;
+            r.lagSeconds = lagSeconds != null ? lagSeconds : Double.NaN;
+            if (healthy != r.healthy) {
+                log.info("datasource: replica {} name={} lagSeconds={} maxLagSeconds={}",
+                        healthy ? "in rotation" : "out of rotation", name, lagSeconds, maxLagSeconds);
+            }
+            r.healthy = healthy;
+        }
+    }
+
+    private Long measureLag(Replica r) {
+        try (Connection con = r.dataSource.getConnection(); Statement st = con.createStatement()) {
+            st.setQueryTimeout(LAG_QUERY_TIMEOUT_SECONDS);
+            return measureLag(r, st);
+        } catch (SQLException e) {
+            if (e.getErrorCode() == ER_SPECIFIC_ACCESS_DENIED) {
+                log.error("datasource: replica lag check needs REPLICATION CLIENT privilege name={}", r.name);
+            } else {
+                log.warn("datasource: replica lag check failed name={} err={}", r.name, e.toString());
+            }
+            return null;
+        }
+    }
+
+    private Long measureLag(Replica r, Statement st) throws SQLException {
+        while (true) {
+            try (ResultSet rs = st.executeQuery(STATUS_QUERIES.get(r.statusQuery))) {
+                // 不是复制从库（本地开发、测试用的独立库），视为没有延迟
+                if (!rs.next()) return 0L;
+                // MySQL 8.0.22+ 为 Seconds_Behind_Source，MariaDB 仍是 Seconds_Behind_Master
+                ResultSetMetaData meta = rs.getMetaData();
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    if (meta.getColumnLabel(i).startsWith("Seconds_Behind_")) {
+                        long lag = rs.getLong(i);
+                        // NULL：复制线程未运行
+                        return rs.wasNull() ? null : lag;
+                    }
+                }
+                return null;
+            } catch (SQLException e) {
+                // 旧版本不认识 REPLICA 关键字，换下一条并记住
+                if (e.getErrorCode() != ER_PARSE_ERROR || r.statusQuery == STATUS_QUERIES.size() - 1) throw e;
+                r.statusQuery++;
+                log.info("datasource: falling back to {} name={}", STATUS_QUERIES.get(r.statusQuery), r.name);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        ScheduledFuture<?> checks = lagChecks;
+        if (checks != null) checks.cancel(false);
+        for (Replica r : replicas) {
+            if (r.dataSource instanceof Closeable c) c.close();
+        }
+    }
+}
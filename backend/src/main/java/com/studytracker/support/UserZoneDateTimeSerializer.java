@@ -0,0 +1,88 @@
+package com.studytracker.support;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * 数据库里的 LocalDateTime 都是 UTC，输出时转换为当前用户时区的 yyyy-MM-dd'T'HH:mm:ss。
+ * 直接写入 char[]，不创建 ZonedDateTime 和格式化后的 String。
+ */
+public class UserZoneDateTimeSerializer extends JsonSerializer<LocalDateTime> {
+    /** formatWithOffset 最多写入的字符数 */
+    public static final int OFFSET_LENGTH = 28;
+
+    /** writeString 会立即复制字符，每个线程复用一块缓冲即可 */
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[19]);
+
+    @Override
+    public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+            return;
+        }
+        char[] buf = BUFFER.get();
+        int len = format(value, UserZones.current(), buf);
+        gen.writeString(buf, 0, len);
+    }
+
+    /** 把 UTC 时间按 zone 格式化到 buf，返回写入的字符数 */
+    public static int format(LocalDateTime utc, ZoneId zone, char[] buf) {
+        return writeLocal(utc, offsetOf(utc, zone), buf);
+    }
+
+    /**
+     * 同 format，但在末尾加上偏移（Z 或 ±HH:mm[:ss]），可直接用 OffsetDateTime.parse 读回；
+     * buf 至少 {@value #OFFSET_LENGTH} 个字符
+     */
+    public static int formatWithOffset(LocalDateTime utc, ZoneId zone, char[] buf) {
+        ZoneOffset offset = offsetOf(utc, zone);
+        int pos = writeLocal(utc, offset, buf);
+        int total = offset.getTotalSeconds();
+        if (total == 0) {
+            buf[pos] = 'Z';
+            return pos + 1;
+        }
+        buf[pos] = total < 0 ? '-' : '+';
+        total = Math.abs(total);
+        writeDigits(buf, pos + 1, total / 3600, 2);
+        buf[pos + 3] = ':';
+        writeDigits(buf, pos + 4, total / 60 % 60, 2);
+        if (total % 60 == 0) return pos + 6;
+        buf[pos + 6] = ':';
+        writeDigits(buf, pos + 7, total % 60, 2);
+        return pos + 9;
+    }
+
+    private static ZoneOffset offsetOf(LocalDateTime utc, ZoneId zone) {
+        return zone.getRules().getOffset(utc.toInstant(ZoneOffset.UTC));
+    }
+
+    private static int writeLocal(LocalDateTime utc, ZoneOffset offset, char[] buf) {
+        LocalDateTime local = offset.getTotalSeconds() == 0 ? utc : utc.plusSeconds(offset.getTotalSeconds());
+        writeDigits(buf, 0, local.getYear(), 4);
+        buf[4] = '-';
+        writeDigits(buf, 5, local.getMonthValue(), 2);
+        buf[7] = '-';
+        writeDigits(buf, 8, local.getDayOfMonth(), 2);
+        buf[10] = 'T';
+        writeDigits(buf, 11, local.getHour(), 2);
+        buf[13] = ':';
+        writeDigits(buf, 14, local.getMinute(), 2);
+        buf[16] = ':';
+        writeDigits(buf, 17, local.getSecond(), 2);
+        return 19;
+    }
+
+    private static void writeDigits(char[] buf, int pos, int value, int width) {
+        for (int i = pos + width - 1; i >= pos; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.studytracker.support;
+
+import com.studytracker.security.AuthenticatedUser;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 解析并缓存用户时区，避免每次请求/每个时间戳都调用 ZoneId.of。
+ */
+public final class UserZones {
+    /** 用户未设置或时区非法时使用北京时间 */
+    public static final ZoneId DEFAULT = ZoneId.of("Asia/Shanghai");
+
+    private static final ConcurrentMap<String, ZoneId> ZONES = new ConcurrentHashMap<>();
+
+    private UserZones() {}
+
+    public static ZoneId of(String zoneId) {
+        if (zoneId == null || zoneId.isBlank()) return DEFAULT;
+        return ZONES.computeIfAbsent(zoneId, UserZones::parse);
+    }
+
+    /** 当前请求用户的时区，未登录时返回默认时区 */
+    public static ZoneId current() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.zone();
+        }
+        return DEFAULT;
+    }
+
+    private static ZoneId parse(String zoneId) {
+        try {
+            return ZoneId.of(zoneId);
+        } catch (DateTimeException e) {
+            return DEFAULT;
+        }
+    }
+}
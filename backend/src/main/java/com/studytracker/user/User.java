@@ -25,7 +25,7 @@ public class User {
 
     private String nickname;
 
-    private String timezone = "Asia/Tokyo";
+    private String timezone = "Asia/Shanghai";
 
     @Column(name = "created_at")
     private Instant createdAt;
@@ -1,10 +1,33 @@
 package com.studytracker.user;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    String USERS_BY_EMAIL_CACHE = "usersByEmail";
+
+    @Cacheable(cacheNames = USERS_BY_EMAIL_CACHE, key = "#p0", unless = "#result == null")
     Optional<User> findByEmail(String email);
-}
 
+    /**
+     * 只读事务内查询，配置了从库时走从库；调用方需处理从库尚未同步的新用户。
+     * 不经过 usersByEmail 缓存，否则从库上落后的行会被缓存给走主库的 findByEmail。
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT u FROM User u WHERE u.email = :email")
+    Optional<User> findByEmailForRead(@Param("email") String email);
+
+    @Override
+    @CacheEvict(cacheNames = USERS_BY_EMAIL_CACHE, key = "#p0.email")
+    <S extends User> S save(S user);
+
+    @Override
+    @CacheEvict(cacheNames = USERS_BY_EMAIL_CACHE, key = "#p0.email")
+    void delete(User user);
+}
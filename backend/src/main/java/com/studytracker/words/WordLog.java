@@ -1,11 +1,9 @@
 package com.studytracker.words;
 
-import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import com.studytracker.study.LocalDateTimeToBeijingSerializer;
 
 import java.time.Instant;
 import java.time.LocalDate;
@@ -31,10 +29,8 @@ public class WordLog {
     private Integer count;
     private String note;
     @Column(name = "start_time")
-    @JsonSerialize(using = LocalDateTimeToBeijingSerializer.class)
     private LocalDateTime startTime;
     @Column(name = "end_time")
-    @JsonSerialize(using = LocalDateTimeToBeijingSerializer.class)
     private LocalDateTime endTime;
     @Column(name = "created_at")
     private Instant createdAt;
@@ -0,0 +1,37 @@
+package com.studytracker.words;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 背词记录的批量插入，见 {@link com.studytracker.study.StudySessionBulkInserter}。
+ */
+@Component
+public class WordLogBulkInserter {
+    private static final String INSERT_SQL = """
+            INSERT INTO word_logs (user_id, subject_id, date, book, count, note, start_time, end_time)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbc;
+
+    public WordLogBulkInserter(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public void insertAll(List<WordLog> logs) {
+        jdbc.batchUpdate(INSERT_SQL, logs, BATCH_SIZE, (ps, wl) -> {
+            ps.setLong(1, wl.getUserId());
+            ps.setObject(2, wl.getSubjectId());
+            ps.setObject(3, wl.getDate());
+            ps.setString(4, wl.getBook());
+            ps.setInt(5, wl.getCount());
+            ps.setString(6, wl.getNote());
+            ps.setObject(7, wl.getStartTime());
+            ps.setObject(8, wl.getEndTime());
+        });
+    }
+}
@@ -0,0 +1,225 @@
+package com.studytracker.words;
+
+import com.studytracker.analytics.DailyStatsBatch;
+import com.studytracker.analytics.DailyStatsService;
+import com.studytracker.goal.StreakService;
+import com.studytracker.stream.TodayStream;
+import com.studytracker.support.DataVersions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 高频背词增量的合并写入（POST /api/word-logs/increments）。
+ * 同一 (用户, 科目, 日期, 词书) 的增量先在内存中累加，按间隔或缓冲键数阈值 flush，
+ * 每个键 upsert 到 word_logs 里属于它的那一行（merge_key 唯一），每日汇总在同一事务里更新。
+ * <p>
+ * 每次 flush 分配一个序号，请求在所在批次提交后才返回该序号；序号以当前时间为下限，重启后仍单调递增。
+ * 停机时在 Web 服务器处理完剩余请求后再 flush 一次。
+ */
+@Slf4j
+@Component
+public class WordLogCoalescer implements SmartLifecycle {
+    private static final String UPSERT_SQL = """
+            INSERT INTO word_logs (user_id, subject_id, date, book, count, merge_key)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE count = count + VALUES(count)
+            """;
+    private static final int BATCH_SIZE = 1000;
+
+    record Key(Long userId, Long subjectId, LocalDate date, String book) {
+        /** 词书名可能很长，取其 UUIDv3 保证定长 */
+        String mergeKey() {
+            String bookKey = book == null ? "-" : UUID.nameUUIDFromBytes(book.getBytes(StandardCharsets.UTF_8)).toString();
+            return userId + ":" + DailyStatsService.subjectKey(subjectId) + ":" + date + ":" + bookKey;
+        }
+    }
+
+    /** 一个键上尚未落库的增量，只在 buffer.compute 内或从 buffer 取出后访问 */
+    private static final class Pending {
+        int count;
+        final List<CompletableFuture<Long>> acks = new ArrayList<>();
+    }
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final DailyStatsService dailyStats;
+    private final DataVersions versions;
+    private final TodayStream todayStream;
+    private final StreakService streaks;
+    private final long flushMs;
+    private final int maxKeys;
+    private final ConcurrentMap<Key, Pending> buffer = new ConcurrentHashMap<>();
+    /** add 持读锁，停止时持写锁切换状态，保证停止后的最后一次 flush 之后不会再有增量进来 */
+    private final ReadWriteLock state = new ReentrantReadWriteLock();
+    private final Object flushLock = new Object();
+    private long lastSeq;
+    private volatile boolean running;
+    private ScheduledExecutorService flusher;
+
+    public WordLogCoalescer(JdbcTemplate jdbc, TransactionTemplate tx, DailyStatsService dailyStats,
+                            DataVersions versions, TodayStream todayStream, StreakService streaks,
+                            @Value("${app.words.coalesce.flush-ms:1000}") long flushMs,
+                            @Value("${app.words.coalesce.max-keys:5000}") int maxKeys) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.dailyStats = dailyStats;
+        this.versions = versions;
+        this.todayStream = todayStream;
+        this.streaks = streaks;
+        this.flushMs = flushMs;
+        this.maxKeys = maxKeys;
+    }
+
+    /** 返回的 future 在增量随某次 flush 提交后以该次序号完成，flush 失败则异常完成 */
+    public CompletableFuture<Long> add(Long userId, Long subjectId, LocalDate date, String book, int count) {
+        CompletableFuture<Long> ack = new CompletableFuture<>();
+        state.readLock().lock();
+        try {
+            if (!running) {
+                return CompletableFuture.failedFuture(
+                        new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Shutting down"));
+            }
+            buffer.compute(new Key(userId, subjectId, date, book), (k, p) -> {
+                Pending pending = p != null ? p : new Pending();
+                pending.count += count;
+                pending.acks.add(ack);
+                return pending;
+            });
+            if (buffer.size() >= maxKeys) {
+                flusher.execute(this::flushQuietly);
+            }
+        } finally {
+            state.readLock().unlock();
+        }
+        return ack;
+    }
+
+    void flush() {
+        synchronized (flushLock) {
+            if (buffer.isEmpty()) return;
+            // 逐键取出：与 add 里的 compute 对同一键互斥，取出之后的增量进入下一批
+            List<Key> keys = new ArrayList<>();
+            List<Pending> batch = new ArrayList<>();
+            for (Key key : buffer.keySet()) {
+                Pending p = buffer.remove(key);
+                if (p != null) {
+                    keys.add(key);
+                    batch.add(p);
+                }
+            }
+            long seq = Math.max(lastSeq + 1, System.currentTimeMillis() * 1000);
+            lastSeq = seq;
+            try {
+                tx.executeWithoutResult(status -> write(keys, batch));
+            } catch (RuntimeException e) {
+                log.warn("words: coalesced flush failed keys={} seq={}", keys.size(), seq, e);
+                batch.forEach(p -> p.acks.forEach(a -> a.completeExceptionally(e)));
+                return;
+            }
+            log.debug("words: coalesced flush keys={} seq={}", keys.size(), seq);
+            batch.forEach(p -> p.acks.forEach(a -> a.complete(seq)));
+        }
+    }
+
+    private void write(List<Key> keys, List<Pending> batch) {
+        List<Integer> indexes = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) indexes.add(i);
+        jdbc.batchUpdate(UPSERT_SQL, indexes, BATCH_SIZE, (ps, i) -> {
+            Key key = keys.get(i);
+            ps.setLong(1, key.userId());
+            ps.setObject(2, key.subjectId());
+            ps.setObject(3, key.date());
+            ps.setString(4, key.book());
+            ps.setInt(5, batch.get(i).count);
+            ps.setString(6, key.mergeKey());
+        });
+
+        DailyStatsBatch stats = new DailyStatsBatch();
+        // 按用户 id、日期升序处理，连续达标的行锁顺序固定，且每天只算一次
+        Map<Long, SortedSet<LocalDate>> days = new TreeMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            Key key = keys.get(i);
+            WordLog wl = new WordLog();
+            wl.setUserId(key.userId());
+            wl.setSubjectId(key.subjectId());
+            wl.setDate(key.date());
+            wl.setCount(batch.get(i).count);
+            stats.addWords(wl);
+            days.computeIfAbsent(key.userId(), k -> new TreeSet<>()).add(key.date());
+        }
+        dailyStats.apply(stats);
+        days.forEach((uid, ds) -> ds.forEach(day -> streaks.recordDay(uid, day)));
+        // 版本号随本事务提交，推送在提交后执行
+        days.keySet().forEach(uid -> {
+            versions.bump(uid);
+            todayStream.reload(uid);
+        });
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("words: coalesced flush crashed", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "word-log-coalescer");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushMs, flushMs, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        state.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            state.writeLock().unlock();
+        }
+        flusher.shutdown();
+        flush();
+        log.info("words: coalescer stopped, buffer flushed");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** 比 Web 服务器的优雅停机（DEFAULT_PHASE - 1024）更晚停止，等在途请求都进入缓冲后再 flush */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
@@ -1,36 +1,213 @@
 package com.studytracker.words;
 
+import com.studytracker.analytics.DailyStatsBatch;
+import com.studytracker.analytics.DailyStatsService;
+import com.studytracker.goal.StreakService;
+import com.studytracker.subject.SubjectRepository;
+import com.studytracker.stream.TodayStream;
 import com.studytracker.support.AuthUtils;
+import com.studytracker.support.Csv;
+import com.studytracker.support.DataVersions;
+import com.studytracker.support.KeysetCursor;
+import com.studytracker.support.KeysetPage;
+import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
-import java.time.ZoneId;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/word-logs")
 public class WordLogController {
+    /** 单个 JSON 批次最多条数，更大的数据量走 CSV 导入 */
+    static final int MAX_BATCH = 5000;
+    private static final int IMPORT_CHUNK = 1000;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final WordLogRepository repo;
     private final AuthUtils auth;
+    private final DailyStatsService dailyStats;
+    private final SubjectRepository subjectRepo;
+    private final WordLogBulkInserter bulkInserter;
+    private final DataVersions versions;
+    private final TodayStream todayStream;
+    private final WordLogCoalescer coalescer;
+    private final StreakService streaks;
 
-    public WordLogController(WordLogRepository repo, AuthUtils auth) {
+    public WordLogController(WordLogRepository repo, AuthUtils auth, DailyStatsService dailyStats,
+                             SubjectRepository subjectRepo, WordLogBulkInserter bulkInserter,
+                             DataVersions versions, TodayStream todayStream, WordLogCoalescer coalescer,
+                             StreakService streaks) {
         this.repo = repo;
         this.auth = auth;
+        this.dailyStats = dailyStats;
+        this.subjectRepo = subjectRepo;
+        this.bulkInserter = bulkInserter;
+        this.versions = versions;
+        this.todayStream = todayStream;
+        this.coalescer = coalescer;
+        this.streaks = streaks;
     }
 
     record CreateReq(@NotNull OffsetDateTime date, String book, @NotNull Integer count, String note, Long subjectId, 
                      OffsetDateTime startTime, OffsetDateTime endTime) {}
 
     @PostMapping
-    public WordLog create(@Valid @RequestBody CreateReq req) {
+    @Transactional
+    public ResponseEntity<?> create(@Valid @RequestBody CreateReq req) {
+        Long uid = auth.currentUserId();
+        // 按 @SQLRestriction 过滤，已删除的科目不能再写入，否则汇总行会在删除之后重新出现
+        if (req.subjectId() != null && !subjectRepo.findIdsByUserId(uid).contains(req.subjectId())) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unknown subjectId " + req.subjectId()));
+        }
+        WordLog wl = toEntity(uid, req);
+        repo.save(wl);
+        dailyStats.recordWords(wl);
+        streaks.recordDay(wl.getUserId(), wl.getDate());
+        versions.bump(wl.getUserId());
+        todayStream.recordWords(wl);
+        return ResponseEntity.ok(wl);
+    }
+
+    record IncrementReq(@NotNull OffsetDateTime date, Long subjectId, @Size(max = 128) String book,
+                        @NotNull @Min(1) @Max(1000) Integer count) {}
+
+    /**
+     * 翻卡片这类高频小增量：同一科目/日期/词书合并成一行，延迟到下一次 flush（默认 1 秒内）一起写入。
+     * 提交后返回 {seq}，seq 单调递增，收到即表示已落库；失败时客户端可原样重发。
+     */
+    @PostMapping("/increments")
+    @Transactional
+    public CompletableFuture<ResponseEntity<?>> increment(@Valid @RequestBody IncrementReq req) {
+        Long uid = auth.currentUserId();
+        // 读写事务里查，走主库：刚创建的科目在从库上可能还不存在
+        if (req.subjectId() != null && !subjectRepo.findIdsByUserId(uid).contains(req.subjectId())) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body(Map.of("error", "Unknown subjectId " + req.subjectId())));
+        }
+        return coalescer.add(uid, req.subjectId(), req.date().toLocalDate(), req.book(), req.count())
+                .thenApply(seq -> ResponseEntity.ok(Map.of("seq", seq)));
+    }
+
+    record BatchReq(@NotEmpty @Size(max = MAX_BATCH) List<@Valid @NotNull CreateReq> items) {}
+
+    @PostMapping("/batch")
+    @Transactional
+    public ResponseEntity<?> createBatch(@Valid @RequestBody BatchReq req) {
+        Long uid = auth.currentUserId();
+        // 科目归属每批只查一次
+        Set<Long> ownedSubjects = subjectRepo.findIdsByUserId(uid);
+        List<WordLog> logs = new ArrayList<>(req.items().size());
+        for (CreateReq item : req.items()) {
+            if (item.subjectId() != null && !ownedSubjects.contains(item.subjectId())) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Unknown subjectId " + item.subjectId()));
+            }
+            logs.add(toEntity(uid, item));
+        }
+        insert(logs);
+        // 批量数据可能落在任意日期，直接重算
+        streaks.recompute(uid);
+        versions.bump(uid);
+        todayStream.reload(uid);
+        return ResponseEntity.ok(Map.of("inserted", logs.size()));
+    }
+
+    /**
+     * 流式导入 CSV：date,count,subjectId,book,note，date 为 yyyy-MM-dd，subjectId 可为空。
+     * 任意一行出错整个导入回滚。
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "text/plain"})
+    // 上传中断抛出的 IOException 是受检异常，默认不回滚，需显式声明
+    @Transactional(rollbackOn = IOException.class)
+    public ResponseEntity<?> importCsv(InputStream body) throws IOException {
+        Long uid = auth.currentUserId();
+        Set<Long> ownedSubjects = subjectRepo.findIdsByUserId(uid);
+        long rows = Csv.read(body, "date", IMPORT_CHUNK, fields -> {
+            String subjectField = Csv.field(fields, 2);
+            Long subjectId = subjectField != null ? Long.valueOf(subjectField) : null;
+            if (subjectId != null && !ownedSubjects.contains(subjectId)) {
+                throw new IllegalArgumentException("Unknown subjectId " + subjectId);
+            }
+            WordLog wl = new WordLog();
+            wl.setUserId(uid);
+            wl.setSubjectId(subjectId);
+            wl.setDate(LocalDate.parse(Csv.field(fields, 0)));
+            wl.setCount(Integer.valueOf(Csv.field(fields, 1)));
+            wl.setBook(Csv.field(fields, 3));
+            wl.setNote(Csv.field(fields, 4));
+            return wl;
+        }, this::insert);
+        // 批量数据可能落在任意日期，直接重算
+        streaks.recompute(uid);
+        versions.bump(uid);
+        todayStream.reload(uid);
+        return ResponseEntity.ok(Map.of("inserted", rows));
+    }
+    
+    /**
+     * 不带 limit/cursor 时返回整个区间（兼容旧前端）；带上则按 (date, id) 游标分页，
+     * 返回 {items, next}，next 为 null 表示没有下一页。
+     */
+    @GetMapping
+    public ResponseEntity<?> list(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor
+    ) {
+        // 查询范围已经是 LocalDate，直接使用即可
+        if (limit == null && cursor == null) {
+            return ResponseEntity.ok(repo.findByUserIdAndDateBetweenOrderByDateAsc(auth.currentUserId(), from, to));
+        }
+
+        int pageSize = Math.min(limit != null ? limit : DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+        if (pageSize <= 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid limit"));
+        }
+        LocalDate afterDate = from;
+        long afterId = 0;
+        if (cursor != null) {
+            try {
+                KeysetCursor c = KeysetCursor.decode(cursor);
+                afterDate = LocalDate.parse(c.key());
+                afterId = c.id();
+            } catch (RuntimeException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+            }
+        }
+        List<WordLog> rows = repo.findPage(auth.currentUserId(), to, afterDate, afterId, PageRequest.of(0, pageSize + 1));
+        return ResponseEntity.ok(KeysetPage.of(rows, pageSize,
+                wl -> new KeysetCursor(wl.getDate().toString(), wl.getId())));
+    }
+
+    private void insert(List<WordLog> logs) {
+        bulkInserter.insertAll(logs);
+        DailyStatsBatch stats = new DailyStatsBatch();
+        logs.forEach(stats::addWords);
+        dailyStats.apply(stats);
+    }
+
+    private static WordLog toEntity(Long uid, CreateReq req) {
         WordLog wl = new WordLog();
-        wl.setUserId(auth.currentUserId());
+        wl.setUserId(uid);
         wl.setSubjectId(req.subjectId());
         // 前端发送的 OffsetDateTime 包含时区信息，直接提取本地日期即可
         // 因为前端是用的系统时间，已经是我们想要的时区了
@@ -45,18 +222,6 @@ public class WordLogController {
             wl.setStartTime(req.startTime().withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime());
             wl.setEndTime(req.endTime().withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime());
         }
-        
-        return repo.save(wl);
-    }
-    
-    @GetMapping
-    public List<WordLog> list(
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
-    ) {
-        // 查询范围已经是 LocalDate，直接使用即可
-        return repo.findByUserIdAndDateBetweenOrderByDateAsc(auth.currentUserId(), from, to);
+        return wl;
     }
 }
-
-
@@ -1,19 +1,39 @@
 package com.studytracker.words;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
 
 public interface WordLogRepository extends JpaRepository<WordLog, Long> {
+    @Transactional(readOnly = true)
     List<WordLog> findByUserIdAndDateBetweenOrderByDateAsc(Long userId, LocalDate from, LocalDate to);
+
+    /** 按 (date, id) 游标分页，走 idx_user_date(user_id, date) 索引 */
+    @Query("""
+            SELECT w FROM WordLog w
+            WHERE w.userId = :userId AND w.date <= :to
+              AND (w.date > :afterDate OR (w.date = :afterDate AND w.id > :afterId))
+            ORDER BY w.date, w.id
+            """)
+    @Transactional(readOnly = true)
+    List<WordLog> findPage(@Param("userId") Long userId, @Param("to") LocalDate to,
+                           @Param("afterDate") LocalDate afterDate, @Param("afterId") Long afterId,
+                           Pageable pageable);
     
-    @Modifying(clearAutomatically = true)
-    @Query("DELETE FROM WordLog w WHERE w.subjectId = :subjectId")
-    void deleteBySubjectId(@Param("subjectId") Long subjectId);
+    /** 分批删除已删科目的记录，每次最多 limit 行，返回实际删除数 */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "word_logs"))
+    @Query(value = "DELETE FROM word_logs WHERE subject_id = :subjectId LIMIT :limit", nativeQuery = true)
+    int deleteChunkBySubjectId(@Param("subjectId") Long subjectId, @Param("limit") int limit);
 }
 
 
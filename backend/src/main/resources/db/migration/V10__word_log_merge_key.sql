@@ -0,0 +1,3 @@
+-- 合并写入的背词记录：同一 用户/科目/日期/词书 只有一行，按 merge_key upsert；普通记录为 NULL
+ALTER TABLE word_logs ADD COLUMN merge_key VARCHAR(100) NULL;
+CREATE UNIQUE INDEX uk_word_logs_merge_key ON word_logs(merge_key);
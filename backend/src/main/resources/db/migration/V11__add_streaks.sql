@@ -0,0 +1,20 @@
+-- 连续达标天数，写入时增量更新，目标变化或删除数据时从 daily_user_stats 重算
+CREATE TABLE user_streaks (
+  user_id BIGINT PRIMARY KEY,
+  current_streak INT NOT NULL DEFAULT 0,
+  best_streak INT NOT NULL DEFAULT 0,
+  last_met_day DATE NULL,
+  days_met INT NOT NULL DEFAULT 0,
+  updated_at DATETIME NULL
+);
+
+-- 各科目 dailyTarget 的达标情况，只为设置了目标且达标过的科目建行
+CREATE TABLE subject_streaks (
+  subject_id BIGINT PRIMARY KEY,
+  user_id BIGINT NOT NULL,
+  current_streak INT NOT NULL DEFAULT 0,
+  best_streak INT NOT NULL DEFAULT 0,
+  last_met_day DATE NULL,
+  days_met INT NOT NULL DEFAULT 0,
+  INDEX idx_user (user_id)
+);
@@ -0,0 +1,2 @@
+-- “全部退出”按毫秒比较签发时间，吊销时间需要毫秒精度
+ALTER TABLE revoked_tokens MODIFY revoked_at DATETIME(3) NOT NULL;
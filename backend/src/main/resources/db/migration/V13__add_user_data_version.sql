@@ -0,0 +1,2 @@
+-- 每个用户的数据版本号，任何写操作在同一事务里 +1；读接口据此生成 ETag，所有实例共享
+ALTER TABLE users ADD COLUMN data_version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,12 @@
+-- refresh token 轮换记录：jti 主键保证一个 token 在所有实例上只能被轮换一次
+-- 宽限期内保存这次签发的新 token，其他实例上的并发刷新据此取回同一对，过期后清空
+CREATE TABLE token_rotations (
+  jti VARCHAR(64) PRIMARY KEY,
+  rotated_at DATETIME(3) NOT NULL,
+  access_token VARCHAR(2048) NULL,
+  refresh_token VARCHAR(2048) NULL,
+  INDEX idx_rotated_at (rotated_at)
+);
+
+-- 刷新时按 family / 用户查库确认吊销
+CREATE INDEX idx_kind_key ON revoked_tokens (kind, token_key);
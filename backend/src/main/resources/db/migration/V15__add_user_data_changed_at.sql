@@ -0,0 +1,2 @@
+-- 最近一次写入的时间；二级缓存是各实例本地的，写入后一段时间内其他实例可能仍返回旧数据，这段时间不发 ETag
+ALTER TABLE users ADD COLUMN data_changed_at DATETIME(3) NULL;
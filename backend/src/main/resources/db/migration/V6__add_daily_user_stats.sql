@@ -0,0 +1,25 @@
+-- 按 用户/日期/科目 预聚合的每日统计，analytics 直接读这张表
+-- subject_id = 0 表示未关联科目的背词记录
+CREATE TABLE daily_user_stats (
+  user_id BIGINT NOT NULL,
+  stat_date DATE NOT NULL,
+  subject_id BIGINT NOT NULL DEFAULT 0,
+  minutes INT NOT NULL DEFAULT 0,
+  words INT NOT NULL DEFAULT 0,
+  sessions INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (user_id, stat_date, subject_id),
+  INDEX idx_subject_id (subject_id)
+);
+
+-- 回填学习时长，按北京时间日期归档（与 /api/study-sessions/days/{date} 一致）
+INSERT INTO daily_user_stats (user_id, stat_date, subject_id, minutes, sessions)
+SELECT user_id, DATE(DATE_ADD(start_time, INTERVAL 8 HOUR)), subject_id, SUM(minutes), COUNT(*)
+FROM study_sessions
+GROUP BY user_id, DATE(DATE_ADD(start_time, INTERVAL 8 HOUR)), subject_id;
+
+-- 回填背词数量
+INSERT INTO daily_user_stats (user_id, stat_date, subject_id, words)
+SELECT user_id, date, COALESCE(subject_id, 0), SUM(count)
+FROM word_logs
+GROUP BY user_id, date, COALESCE(subject_id, 0)
+ON DUPLICATE KEY UPDATE words = VALUES(words);
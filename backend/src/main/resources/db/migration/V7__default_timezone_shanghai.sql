@@ -0,0 +1,4 @@
+-- timezone 之前从未被读取，实际统一按北京时间处理；
+-- 现在开始按用户时区输出，先把默认值改成北京时间以保持现有行为
+UPDATE users SET timezone = 'Asia/Shanghai' WHERE timezone IS NULL OR timezone = 'Asia/Tokyo';
+ALTER TABLE users ALTER COLUMN timezone SET DEFAULT 'Asia/Shanghai';
@@ -0,0 +1,9 @@
+-- refresh token 吊销记录，启动时加载最近 refresh-token-ttl-days 内的记录到内存
+-- kind: JTI（已轮换的单个 token）/ FAMILY（整条轮换链）/ USER（该用户此前签发的全部 token）
+CREATE TABLE revoked_tokens (
+  id BIGINT PRIMARY KEY AUTO_INCREMENT,
+  kind VARCHAR(8) NOT NULL,
+  token_key VARCHAR(64) NOT NULL,
+  revoked_at DATETIME NOT NULL,
+  INDEX idx_revoked_at (revoked_at)
+);
@@ -0,0 +1,14 @@
+-- 删除科目改为先标记，关联记录由后台任务分批清理
+ALTER TABLE subjects ADD COLUMN deleted_at DATETIME NULL;
+
+-- 每个待清理科目一行，重启后从这里继续
+CREATE TABLE subject_purges (
+  subject_id BIGINT PRIMARY KEY,
+  user_id BIGINT NOT NULL,
+  status VARCHAR(10) NOT NULL DEFAULT 'PENDING',
+  sessions_deleted BIGINT NOT NULL DEFAULT 0,
+  word_logs_deleted BIGINT NOT NULL DEFAULT 0,
+  requested_at DATETIME NOT NULL,
+  finished_at DATETIME NULL,
+  INDEX idx_status (status)
+);
@@ -0,0 +1,215 @@
+package com.studytracker.loadtest;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.studytracker.analytics.DailyStatsService;
+import com.studytracker.goal.GoalRepository;
+import com.studytracker.loadtest.LoadTestSeeder.SeededUser;
+import com.studytracker.study.StudySessionBulkInserter;
+import com.studytracker.subject.SubjectRepository;
+import com.studytracker.user.UserRepository;
+import com.studytracker.words.WordLogBulkInserter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 端到端压测：内嵌 MariaDB 上启动完整应用，播种 N 个用户的历史数据，
+ * 再以固定并发混合发送登录/列表/统计/写入请求，按接口输出 p50/p95/p99 和 RPS。
+ *
+ * <pre>
+ * mvn test -Ploadtest -Dloadtest.users=100 -Dloadtest.concurrency=64 -Dloadtest.duration-seconds=120
+ * </pre>
+ * 结果同时写入 target/loadtest-report.json，便于不同版本之间对比。
+ */
+@Tag("loadtest")
+@ActiveProfiles("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ApiLoadTest {
+    private static final int USERS = Integer.getInteger("loadtest.users", 50);
+    private static final int SESSIONS_PER_USER = Integer.getInteger("loadtest.sessions-per-user", 1000);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 32);
+    private static final int WARMUP_SECONDS = Integer.getInteger("loadtest.warmup-seconds", 10);
+    private static final int DURATION_SECONDS = Integer.getInteger("loadtest.duration-seconds", 60);
+    private static final String REPORT = System.getProperty("loadtest.report", "target/loadtest-report.json");
+    private static final String PASSWORD = "loadtest-password";
+
+    private static DB db;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws ManagedProcessException {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        db = DB.newEmbeddedDB(config.build());
+        db.start();
+        db.createDB("studytracker");
+        int port = db.getConfiguration().getPort();
+        registry.add("spring.datasource.url", () -> "jdbc:mysql://localhost:" + port
+                + "/studytracker?useSSL=false&serverTimezone=UTC&characterEncoding=utf8"
+                + "&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true");
+        registry.add("spring.datasource.username", () -> "root");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws ManagedProcessException {
+        if (db != null) db.stop();
+    }
+
+    /** 一种请求及其在混合流量中的权重 */
+    private record Op(String name, int weight, BiFunction<Client, SeededUser, HttpRequest> request) {}
+
+    /** 每个用户登录后的 token */
+    private record Client(String accessToken) {}
+
+    private final List<Op> ops = List.of(
+            new Op("POST /auth/login", 2, (c, u) -> post("/api/auth/login", null,
+                    Map.of("email", u.email(), "password", PASSWORD))),
+            new Op("GET /subjects", 18, (c, u) -> get("/api/subjects", c)),
+            new Op("GET /goals", 10, (c, u) -> get("/api/goals", c)),
+            new Op("GET /dashboard", 15, (c, u) -> get("/api/dashboard", c)),
+            new Op("GET /analytics/daily", 15, (c, u) -> get("/api/analytics/daily?range=30d", c)),
+            new Op("GET /analytics/daily?month", 5, (c, u) -> get("/api/analytics/daily?granularity=month&from="
+                    + LocalDate.now().minusYears(1) + "&to=" + LocalDate.now(), c)),
+            new Op("GET /study-sessions?limit", 15, (c, u) -> get("/api/study-sessions?from="
+                    + LocalDate.now().minusDays(30) + "&to=" + LocalDate.now() + "&limit=100", c)),
+            new Op("POST /study-sessions", 15, (c, u) -> {
+                OffsetDateTime start = OffsetDateTime.now(ZoneOffset.UTC).minusMinutes(30);
+                return post("/api/study-sessions", c, Map.of(
+                        "subjectId", u.subjectIds().get(ThreadLocalRandom.current().nextInt(u.subjectIds().size())),
+                        "startTime", start.toString(),
+                        "endTime", start.plusMinutes(25).toString()));
+            }),
+            new Op("POST /word-logs", 5, (c, u) -> post("/api/word-logs", c, Map.of(
+                    "date", OffsetDateTime.now(ZoneOffset.UTC).toString(),
+                    "count", 30,
+                    "subjectId", u.subjectIds().get(0)))));
+
+    @LocalServerPort
+    int port;
+
+    @Autowired UserRepository users;
+    @Autowired SubjectRepository subjects;
+    @Autowired GoalRepository goals;
+    @Autowired StudySessionBulkInserter sessionInserter;
+    @Autowired WordLogBulkInserter wordLogInserter;
+    @Autowired DailyStatsService dailyStats;
+    @Autowired PasswordEncoder passwordEncoder;
+    @Autowired ObjectMapper objectMapper;
+
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    void mixedTraffic() throws Exception {
+        List<SeededUser> seeded = new LoadTestSeeder(users, subjects, goals, sessionInserter, wordLogInserter, dailyStats)
+                .seed(USERS, SESSIONS_PER_USER, passwordEncoder.encode(PASSWORD));
+        List<Client> clients = new ArrayList<>(seeded.size());
+        for (SeededUser u : seeded) {
+            HttpResponse<String> res = http.send(post("/api/auth/login", null,
+                    Map.of("email", u.email(), "password", PASSWORD)), HttpResponse.BodyHandlers.ofString());
+            JsonNode body = objectMapper.readTree(res.body());
+            clients.add(new Client(body.get("accessToken").asText()));
+        }
+
+        run(seeded, clients, WARMUP_SECONDS, new LatencyStats());
+        LatencyStats stats = new LatencyStats();
+        run(seeded, clients, DURATION_SECONDS, stats);
+
+        Map<String, LatencyStats.Summary> summary = stats.summarize(DURATION_SECONDS);
+        System.out.printf("%nloadtest: users=%d sessionsPerUser=%d concurrency=%d duration=%ds%n%s",
+                USERS, SESSIONS_PER_USER, CONCURRENCY, DURATION_SECONDS, LatencyStats.format(summary));
+        Path report = Path.of(REPORT);
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(report.toFile(), Map.of(
+                "users", USERS, "sessionsPerUser", SESSIONS_PER_USER, "concurrency", CONCURRENCY,
+                "durationSeconds", DURATION_SECONDS, "endpoints", summary.values()));
+
+        int total = summary.values().stream().mapToInt(LatencyStats.Summary::count).sum();
+        int errors = summary.values().stream().mapToInt(LatencyStats.Summary::errors).sum();
+        assertTrue(errors * 100 <= total, "error rate above 1%: " + errors + "/" + total);
+    }
+
+    /** CONCURRENCY 个虚拟线程闭环发请求，每个线程随机挑用户和请求类型 */
+    private void run(List<SeededUser> seeded, List<Client> clients, int seconds, LatencyStats stats)
+            throws InterruptedException {
+        int totalWeight = ops.stream().mapToInt(Op::weight).sum();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < CONCURRENCY; w++) {
+                workers.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        int i = random.nextInt(seeded.size());
+                        Op op = pick(random.nextInt(totalWeight));
+                        HttpRequest request = op.request().apply(clients.get(i), seeded.get(i));
+                        long start = System.nanoTime();
+                        boolean ok;
+                        try {
+                            int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            ok = status >= 200 && status < 300;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        stats.record(op.name(), System.nanoTime() - start, ok);
+                    }
+                });
+            }
+        }
+    }
+
+    private Op pick(int roll) {
+        for (Op op : ops) {
+            roll -= op.weight();
+            if (roll < 0) return op;
+        }
+        return ops.get(ops.size() - 1);
+    }
+
+    private HttpRequest get(String path, Client client) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + client.accessToken())
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, Client client, Map<String, Object> body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/json");
+        if (client != null) builder.header("Authorization", "Bearer " + client.accessToken());
+        try {
+            return builder.POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))).build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.studytracker.loadtest;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按接口记录每个请求的耗时和失败数，压测结束后统一排序出分位数。
+ */
+class LatencyStats {
+
+    record Summary(String endpoint, int count, int errors, double rps,
+                   double p50Ms, double p95Ms, double p99Ms, double maxMs) {}
+
+    private final ConcurrentMap<String, Recorder> recorders = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long nanos, boolean ok) {
+        recorders.computeIfAbsent(endpoint, k -> new Recorder()).add(nanos, ok);
+    }
+
+    Map<String, Summary> summarize(double elapsedSeconds) {
+        Map<String, Summary> result = new TreeMap<>();
+        recorders.forEach((endpoint, r) -> result.put(endpoint, r.summarize(endpoint, elapsedSeconds)));
+        return result;
+    }
+
+    static String format(Map<String, Summary> summaries) {
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "%-28s %8s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "rps", "p50(ms)", "p95(ms)", "p99(ms)", "max(ms)"));
+        for (Summary s : summaries.values()) {
+            sb.append(String.format(Locale.ROOT, "%-28s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    s.endpoint(), s.count(), s.errors(), s.rps(), s.p50Ms(), s.p95Ms(), s.p99Ms(), s.maxMs()));
+        }
+        return sb.toString();
+    }
+
+    private static final class Recorder {
+        private long[] nanos = new long[1024];
+        private int size;
+        private int errors;
+
+        synchronized void add(long value, boolean ok) {
+            if (size == nanos.length) nanos = Arrays.copyOf(nanos, size * 2);
+            nanos[size++] = value;
+            if (!ok) errors++;
+        }
+
+        synchronized Summary summarize(String endpoint, double elapsedSeconds) {
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            return new Summary(endpoint, size, errors, size / elapsedSeconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    size == 0 ? 0 : sorted[size - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
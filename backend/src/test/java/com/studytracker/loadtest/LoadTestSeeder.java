@@ -0,0 +1,114 @@
+package com.studytracker.loadtest;
+
+import com.studytracker.analytics.DailyStatsBatch;
+import com.studytracker.analytics.DailyStatsService;
+import com.studytracker.goal.Goal;
+import com.studytracker.goal.GoalRepository;
+import com.studytracker.study.StudySession;
+import com.studytracker.study.StudySessionBulkInserter;
+import com.studytracker.subject.Subject;
+import com.studytracker.subject.SubjectRepository;
+import com.studytracker.support.UserZones;
+import com.studytracker.user.User;
+import com.studytracker.user.UserRepository;
+import com.studytracker.words.WordLog;
+import com.studytracker.words.WordLogBulkInserter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 给压测准备数据：每个用户若干科目、一条目标，以及向前铺开的学习/背词记录。
+ * 记录走批量插入并同步写入每日汇总表，与 /import 的写入路径一致。
+ */
+class LoadTestSeeder {
+    private static final String[] SUBJECTS = {"英语", "数学", "专业课", "政治"};
+
+    record SeededUser(Long id, String email, List<Long> subjectIds) {}
+
+    private final UserRepository users;
+    private final SubjectRepository subjects;
+    private final GoalRepository goals;
+    private final StudySessionBulkInserter sessionInserter;
+    private final WordLogBulkInserter wordLogInserter;
+    private final DailyStatsService dailyStats;
+    private final Random random = new Random(42);
+
+    LoadTestSeeder(UserRepository users, SubjectRepository subjects, GoalRepository goals,
+                   StudySessionBulkInserter sessionInserter, WordLogBulkInserter wordLogInserter,
+                   DailyStatsService dailyStats) {
+        this.users = users;
+        this.subjects = subjects;
+        this.goals = goals;
+        this.sessionInserter = sessionInserter;
+        this.wordLogInserter = wordLogInserter;
+        this.dailyStats = dailyStats;
+    }
+
+    /** passwordHash 由调用方算一次，所有用户共用，避免播种阶段跑 N 次 BCrypt */
+    List<SeededUser> seed(int userCount, int sessionsPerUser, String passwordHash) {
+        List<SeededUser> seeded = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            User u = new User();
+            u.setEmail("load" + i + "@example.com");
+            u.setPasswordHash(passwordHash);
+            u.setNickname("load" + i);
+            users.save(u);
+
+            List<Long> subjectIds = new ArrayList<>();
+            for (String name : SUBJECTS) {
+                Subject s = new Subject();
+                s.setUserId(u.getId());
+                s.setName(name);
+                s.setColorHex("#3B82F6");
+                subjects.save(s);
+                subjectIds.add(s.getId());
+            }
+
+            Goal g = new Goal();
+            g.setUserId(u.getId());
+            goals.save(g);
+
+            seedHistory(u.getId(), subjectIds, sessionsPerUser);
+            seeded.add(new SeededUser(u.getId(), u.getEmail(), subjectIds));
+        }
+        return seeded;
+    }
+
+    private void seedHistory(Long userId, List<Long> subjectIds, int sessionCount) {
+        // 平均每天 3 条学习记录、1 条背词记录，从今天往前铺
+        LocalDate today = LocalDate.now(UserZones.DEFAULT);
+        DailyStatsBatch batch = new DailyStatsBatch();
+        List<StudySession> sessions = new ArrayList<>(sessionCount);
+        List<WordLog> logs = new ArrayList<>(sessionCount / 3 + 1);
+        for (int i = 0; i < sessionCount; i++) {
+            LocalDate day = today.minusDays(i / 3);
+            LocalDateTime start = day.atTime(8 + (i % 3) * 4, random.nextInt(60))
+                    .atZone(UserZones.DEFAULT).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+            StudySession s = new StudySession();
+            s.setUserId(userId);
+            s.setSubjectId(subjectIds.get(random.nextInt(subjectIds.size())));
+            s.setStartTime(start);
+            s.setEndTime(start.plusMinutes(20 + random.nextInt(100)));
+            sessions.add(s);
+            batch.addSession(s, UserZones.DEFAULT);
+
+            if (i % 3 == 0) {
+                WordLog wl = new WordLog();
+                wl.setUserId(userId);
+                wl.setSubjectId(subjectIds.get(0));
+                wl.setDate(day);
+                wl.setCount(20 + random.nextInt(80));
+                logs.add(wl);
+                batch.addWords(wl);
+            }
+        }
+        sessionInserter.insertAll(sessions);
+        wordLogInserter.insertAll(logs);
+        dailyStats.apply(batch);
+    }
+}
@@ -0,0 +1,36 @@
+package com.studytracker.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvTest {
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        Csv.read(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), "a", 2, fields -> fields, rows::addAll);
+        return rows;
+    }
+
+    @Test
+    void escapedFieldsReadBack() throws IOException {
+        String note = "第一行\n\n\"引号\", 逗号\n末行";
+        List<List<String>> rows = readAll("a,b\n1," + Csv.escape(note) + "\n2,x\n");
+
+        assertThat(rows).containsExactly(List.of("1", note), List.of("2", "x"));
+    }
+
+    @Test
+    void reportsLineWhereRecordStarts() {
+        assertThatThrownBy(() -> readAll("a,b\n1,x\n2,\"open\nstill open\n"))
+                .isInstanceOf(CsvFormatException.class)
+                .hasMessageStartingWith("line 3:");
+    }
+}
@@ -0,0 +1,120 @@
+package com.studytracker.support;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import com.studytracker.security.AuthenticatedUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 同一个内嵌 MariaDB 里建两个库分别充当主库和从库，各写一行不同的标记，
+ * 通过查询结果判断连接来自哪一边。
+ */
+class ReplicaRoutingDataSourceTest {
+    private static DB db;
+    private static DataSource primary;
+    private static DataSource replica;
+
+    private ReplicaRoutingDataSource replicas;
+    private ReadRouting readRouting;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnlyTx;
+    private TransactionTemplate writeTx;
+
+    @BeforeAll
+    static void startDatabases() throws ManagedProcessException {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        db = DB.newEmbeddedDB(config.build());
+        db.start();
+        primary = database("routing_primary");
+        replica = database("routing_replica");
+    }
+
+    private static DataSource database(String name) throws ManagedProcessException {
+        db.createDB(name);
+        DataSource ds = new DriverManagerDataSource(
+                "jdbc:mysql://localhost:" + db.getConfiguration().getPort() + "/" + name + "?useSSL=false",
+                "root", "");
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        jdbc.execute("CREATE TABLE marker (name VARCHAR(32) NOT NULL)");
+        jdbc.update("INSERT INTO marker (name) VALUES (?)", name);
+        return ds;
+    }
+
+    @AfterAll
+    static void stopDatabases() throws ManagedProcessException {
+        if (db != null) db.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        readRouting = new ReadRouting(5000);
+        replicas = new ReplicaRoutingDataSource(primary, Map.of("replica-0", replica), readRouting, 5,
+                new SimpleMeterRegistry());
+        replicas.checkLag();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(replicas);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(dataSource);
+        readOnlyTx = new TransactionTemplate(txManager);
+        readOnlyTx.setReadOnly(true);
+        writeTx = new TransactionTemplate(txManager);
+    }
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private String marker(TransactionTemplate tx) {
+        return tx.execute(status -> jdbc.queryForObject("SELECT name FROM marker", String.class));
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        assertThat(marker(readOnlyTx)).isEqualTo("routing_replica");
+        assertThat(marker(writeTx)).isEqualTo("routing_primary");
+        assertThat(jdbc.queryForObject("SELECT name FROM marker", String.class)).isEqualTo("routing_primary");
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() {
+        replicas.recordLag("replica-0", 60L);
+        assertThat(marker(readOnlyTx)).isEqualTo("routing_primary");
+
+        replicas.recordLag("replica-0", 1L);
+        assertThat(marker(readOnlyTx)).isEqualTo("routing_replica");
+    }
+
+    @Test
+    void recentWriterReadsFromPrimary() {
+        AuthenticatedUser user = new AuthenticatedUser(42L, "reader@example.com", ZoneOffset.UTC);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+        assertThat(marker(readOnlyTx)).isEqualTo("routing_replica");
+
+        readRouting.pin(42L);
+        assertThat(marker(readOnlyTx)).isEqualTo("routing_primary");
+    }
+}
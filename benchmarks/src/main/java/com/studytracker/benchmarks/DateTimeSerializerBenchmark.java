@@ -0,0 +1,61 @@
+package com.studytracker.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.studytracker.config.JacksonConfig;
+import com.studytracker.study.StudySession;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 序列化大批学习记录，每条两个时间戳都经过 UserZoneDateTimeSerializer。
+ * 未登录时按默认时区 Asia/Shanghai 输出，与线上多数请求一致。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateTimeSerializerBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    private ObjectMapper mapper;
+    private List<StudySession> sessions;
+
+    @Setup
+    public void setup() {
+        // 与 Spring Boot 默认配置一致：JavaTimeModule 之后注册的 userZoneModule 优先
+        mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .registerModule(new JacksonConfig().userZoneModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        Instant createdAt = Instant.parse("2025-01-01T00:00:00Z");
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        sessions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            StudySession s = new StudySession();
+            s.setId((long) i);
+            s.setUserId(42L);
+            s.setSubjectId((long) (i % 5));
+            s.setStartTime(base.plusMinutes(i * 7L));
+            s.setEndTime(base.plusMinutes(i * 7L + 25));
+            s.setNote("session " + i);
+            s.setCreatedAt(createdAt);
+            sessions.add(s);
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return mapper.writeValueAsBytes(sessions);
+    }
+}
@@ -0,0 +1,19 @@
+package com.studytracker.benchmarks;
+
+import com.studytracker.security.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.Map;
+
+/** 各基准共用的测试数据 */
+final class Fixtures {
+    static final String SECRET = "benchmarkSecretKeyThatIsAtLeastThirtyTwoCharactersLong";
+    static final String EMAIL = "bench@example.com";
+    static final Map<String, Object> ACCESS_CLAIMS = Map.of("uid", 42L, "tz", "Asia/Shanghai");
+
+    private Fixtures() {}
+
+    static JwtService jwtService(long verifiedTokenCacheSize) {
+        return new JwtService(SECRET, 60, 7, verifiedTokenCacheSize, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,87 @@
+package com.studytracker.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.studytracker.analytics.Granularity;
+import com.studytracker.analytics.Heatmap;
+import com.studytracker.analytics.StatsBucket;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一年、按科目的热力图：每天一个 Map 的旧做法（StatsBucket.fill）对比 Heatmap 的 int 数组。
+ * 加 -prof gc 看每次调用的分配量；*Json 方法返回的字节数即响应体大小。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HeatmapBenchmark {
+    private static final int YEAR = 2025;
+
+    @Param({"1", "5", "20"})
+    int subjects;
+
+    private ObjectMapper mapper;
+    /** 热力图查询返回的行：statDate, subjectId, minutes, words */
+    private List<Object[]> rows;
+    private Map<Long, List<StatsBucket>> bucketsBySubject;
+    private LocalDate from;
+    private LocalDate to;
+
+    @Setup
+    public void setup() {
+        mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        from = LocalDate.of(YEAR, 1, 1);
+        to = LocalDate.of(YEAR, 12, 31);
+        rows = new ArrayList<>();
+        bucketsBySubject = new HashMap<>();
+        for (long subject = 1; subject <= subjects; subject++) {
+            List<StatsBucket> buckets = new ArrayList<>();
+            for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+                // 大约一半的日子有记录
+                if ((d.getDayOfYear() + subject) % 2 == 0) {
+                    int minutes = (int) ((d.getDayOfYear() * subject) % 180);
+                    int words = (int) ((d.getDayOfYear() + subject) % 300);
+                    rows.add(new Object[]{d, subject, minutes, words});
+                    buckets.add(new StatsBucket(d, minutes, words));
+                }
+            }
+            bucketsBySubject.put(subject, buckets);
+        }
+    }
+
+    @Benchmark
+    public Map<Long, List<Map<String, Object>>> perDayMaps() {
+        Map<Long, List<Map<String, Object>>> result = new HashMap<>();
+        bucketsBySubject.forEach((subject, buckets) ->
+                result.put(subject, StatsBucket.fill(buckets, Granularity.DAY, from, to)));
+        return result;
+    }
+
+    @Benchmark
+    public Heatmap heatmap() {
+        return Heatmap.of(YEAR, rows);
+    }
+
+    @Benchmark
+    public byte[] perDayMapsJson() throws Exception {
+        return mapper.writeValueAsBytes(perDayMaps());
+    }
+
+    @Benchmark
+    public byte[] heatmapJson() throws Exception {
+        return mapper.writeValueAsBytes(heatmap());
+    }
+}
@@ -0,0 +1,41 @@
+package com.studytracker.benchmarks;
+
+import com.studytracker.auth.InviteCodeService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InviteCodeBenchmark {
+
+    private InviteCodeService service;
+
+    @Setup
+    public void setup() {
+        service = new InviteCodeService();
+    }
+
+    @Benchmark
+    public String generateInviteCode() {
+        return service.generateInviteCode();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateInviteCodeContended() {
+        return service.generateInviteCode();
+    }
+
+    /** /invite-codes/bulk 的上限 */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Set<String> generateTenThousand() {
+        return service.generateInviteCodes(10_000);
+    }
+}
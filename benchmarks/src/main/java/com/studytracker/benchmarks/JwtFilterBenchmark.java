@@ -0,0 +1,68 @@
+package com.studytracker.benchmarks;
+
+import com.studytracker.security.JwtAuthenticationFilter;
+import com.studytracker.security.JwtService;
+import com.studytracker.security.TokenRevocations;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次完整的 JWT 过滤：解析请求头、验签（或命中缓存）、写入 SecurityContext。
+ * withUid=false 对应不带 uid 的旧 token，会回退到 UserDetailsService（这里是桩实现，不查库）。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtFilterBenchmark {
+
+    @Param({"true", "false"})
+    boolean withUid;
+
+    @Param({"0", "10000"})
+    long cacheSize;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+
+    @Setup
+    public void setup() {
+        JwtService jwtService = Fixtures.jwtService(cacheSize);
+        UserDetails user = User.withUsername(Fixtures.EMAIL).password("x").authorities("ROLE_USER").build();
+        UserDetailsService userDetailsService = username -> user;
+        // 不调用 load()，吊销集合为空，不需要数据库
+        filter = new JwtAuthenticationFilter(jwtService, userDetailsService, new TokenRevocations(null, 7), 60);
+
+        String token = jwtService.generateAccessToken(Fixtures.EMAIL,
+                withUid ? Fixtures.ACCESS_CLAIMS : Map.of());
+        request = new MockHttpServletRequest("GET", "/api/subjects");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> { };
+    }
+
+    @Benchmark
+    public Object doFilter() throws Exception {
+        SecurityContextHolder.clearContext();
+        filter.doFilter(request, response, chain);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+}
@@ -0,0 +1,40 @@
+package com.studytracker.benchmarks;
+
+import com.studytracker.security.JwtService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 签发与解析 access token。cacheSize=0 时每次都重新验签，对应缓存未命中的情况。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+    @Param({"0", "10000"})
+    long cacheSize;
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtService = Fixtures.jwtService(cacheSize);
+        token = jwtService.generateAccessToken(Fixtures.EMAIL, Fixtures.ACCESS_CLAIMS);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtService.generateAccessToken(Fixtures.EMAIL, Fixtures.ACCESS_CLAIMS);
+    }
+
+    @Benchmark
+    public String extractSubject() {
+        return jwtService.extractSubject(token);
+    }
+}
@@ -0,0 +1,49 @@
+package com.studytracker.benchmarks;
+
+import com.studytracker.analytics.Granularity;
+import com.studytracker.analytics.StatsBucket;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * analytics/daily 在 Java 侧剩下的工作：把数据库返回的聚合行铺成连续的桶。
+ * rows 为每天一行的聚合结果数，区间与之等长。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatsBucketBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int rows;
+
+    private List<StatsBucket> buckets;
+    private LocalDate from;
+    private LocalDate to;
+
+    @Setup
+    public void setup() {
+        to = LocalDate.of(2025, 1, 1);
+        from = to.minusDays(rows - 1);
+        buckets = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            // 隔天有数据，保证查表命中和补 0 两条路径都走到
+            if (i % 2 == 0) {
+                buckets.add(new StatsBucket(from.plusDays(i), i % 180, i % 300));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> fillByDay() {
+        return StatsBucket.fill(buckets, Granularity.DAY, from, to);
+    }
+}
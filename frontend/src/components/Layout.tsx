@@ -1,6 +1,7 @@
 import React, { useState, useEffect } from "react";
 import { Link, useLocation, useNavigate } from "react-router-dom";
 import { useAuthStore } from "../stores/auth";
+import { api } from "../lib/api";
 
 export const Layout: React.FC<{ children: React.ReactNode }> = ({ children }) => {
   const location = useLocation();
@@ -40,6 +41,9 @@ export const Layout: React.FC<{ children: React.ReactNode }> = ({ children }) =>
   const isBubu = globalTheme === 'bubu';
 
   const handleLogout = () => {
+    // 通知后端作废 refresh token，失败不影响本地退出
+    const refreshToken = useAuthStore.getState().refreshToken;
+    if (refreshToken) api.post("/auth/logout", { refreshToken }).catch(() => {});
     logout();
     navigate("/auth/login");
   };
@@ -16,6 +16,38 @@ api.interceptors.request.use((config) => {
   return config;
 });
 
+// 每个标签页各有一份内存中的 token，其他标签页轮换后只更新了 localStorage
+async function persistedTokens() {
+  await useAuthStore.persist.rehydrate();
+  return useAuthStore.getState();
+}
+
+async function refreshTokens(usedAccessToken: string | undefined) {
+  let { accessToken, refreshToken } = await persistedTokens();
+  // 其他标签页已经刷新过，直接用新的 access token
+  if (accessToken && accessToken !== usedAccessToken) return;
+  for (let attempt = 0; ; attempt++) {
+    if (!refreshToken) throw new Error("No refresh token");
+    try {
+      const { data } = await axios.post(`${apiBase}/api/auth/refresh`, {
+        refreshToken,
+      });
+      useAuthStore.getState().setTokens(data.accessToken, data.refreshToken);
+      return;
+    } catch (e) {
+      if (attempt > 0) throw e;
+      // 409：其他标签页正在用同一个 token 刷新，等它写入后读取新 token 重试一次
+      if (axios.isAxiosError(e) && e.response?.status === 409) {
+        await new Promise((resolve) => setTimeout(resolve, 500));
+      }
+      const latest = await persistedTokens();
+      if (latest.accessToken && latest.accessToken !== accessToken) return;
+      accessToken = latest.accessToken;
+      refreshToken = latest.refreshToken;
+    }
+  }
+}
+
 api.interceptors.response.use(
   (res) => res,
   async (error) => {
@@ -28,12 +60,8 @@ api.interceptors.response.use(
       original._retry = true;
       isRefreshing = true;
       try {
-        const refreshToken = useAuthStore.getState().refreshToken;
-        if (!refreshToken) throw error;
-        const { data } = await axios.post(`${apiBase}/api/auth/refresh`, {
-          refreshToken,
-        });
-        useAuthStore.getState().setTokens(data.accessToken, data.refreshToken);
+        const used = String(original.headers?.Authorization ?? "").replace(/^Bearer /, "");
+        await refreshTokens(used || undefined);
         pending.forEach((fn) => fn());
         pending = [];
         return api(original);
@@ -47,9 +75,3 @@ api.interceptors.response.use(
     throw error;
   }
 );
-
-
-
-
-
-